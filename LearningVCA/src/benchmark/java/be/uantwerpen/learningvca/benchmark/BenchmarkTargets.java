@@ -0,0 +1,146 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.uantwerpen.learningvca.examples.ExampleFourDeltas;
+import be.uantwerpen.learningvca.examples.ExampleInternalLoop;
+import be.uantwerpen.learningvca.examples.ExampleRegular;
+import be.uantwerpen.learningvca.examples.ExampleTwoCalls;
+import be.uantwerpen.learningvca.examples.ExampleVariableThreshold;
+import be.uantwerpen.learningvca.examples.ExampleWithInternals;
+import be.uantwerpen.learningvca.examples.ExampleWithoutInternals;
+import be.uantwerpen.learningvca.experiment.VCAExperiment;
+import be.uantwerpen.learningvca.learner.LearnerVCA;
+import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle;
+import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.Location;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.impl.DefaultVPDAlphabet;
+
+/**
+ * The targets used by the benchmarks.
+ * @author Gaëtan Staquet
+ */
+final class BenchmarkTargets {
+    /**
+     * The threshold used for {@link ExampleVariableThreshold}
+     */
+    static final int VARIABLE_THRESHOLD = 5;
+
+    private BenchmarkTargets() {
+
+    }
+
+    /**
+     * Gets the VCA of a class in the examples package.
+     * @param example The simple name of the class
+     * @return The VCA
+     */
+    static VCA<?, Character> getExample(String example) {
+        switch (example) {
+            case "ExampleFourDeltas":
+                return ExampleFourDeltas.getVCA();
+            case "ExampleInternalLoop":
+                return ExampleInternalLoop.getVCA();
+            case "ExampleRegular":
+                return ExampleRegular.getVCA();
+            case "ExampleTwoCalls":
+                return ExampleTwoCalls.getVCA();
+            case "ExampleVariableThreshold":
+                return ExampleVariableThreshold.getVCA(VARIABLE_THRESHOLD);
+            case "ExampleWithInternals":
+                return ExampleWithInternals.getVCA();
+            case "ExampleWithoutInternals":
+                return ExampleWithoutInternals.getVCA();
+            default:
+                throw new IllegalArgumentException("Unknown example: " + example);
+        }
+    }
+
+    /**
+     * Gets a pushdown alphabet with 'a' as call symbol, 'b' as return symbol and alphabetSize - 2 internal symbols (starting from 'c').
+     * @param alphabetSize The size of the alphabet. It must be at least 2
+     * @return The alphabet
+     */
+    static VPDAlphabet<Character> getAlphabet(int alphabetSize) {
+        if (alphabetSize < 2) {
+            throw new IllegalArgumentException("The alphabet must contain at least 2 symbols. Received: " + alphabetSize);
+        }
+        List<Character> internals = new ArrayList<>(alphabetSize - 2);
+        for (int i = 0 ; i < alphabetSize - 2 ; i++) {
+            internals.add((char)('c' + i));
+        }
+        return new DefaultVPDAlphabet<>(internals, Arrays.asList('a'), Arrays.asList('b'));
+    }
+
+    /**
+     * Constructs a m-VCA for L = {a^n u b^n | n >= m, u is a word over the internal symbols}.
+     * @param threshold m. It must be at least 1
+     * @param alphabetSize The size of the alphabet (see {@link #getAlphabet(int)})
+     * @return A m-VCA
+     */
+    static DefaultVCA<Character> getTarget(int threshold, int alphabetSize) {
+        VPDAlphabet<Character> alphabet = getAlphabet(alphabetSize);
+        DefaultVCA<Character> vca = new DefaultVCA<>(alphabet, threshold);
+
+        Location q0 = vca.addInitialLocation();
+        Location q1 = vca.addLocation();
+        Location q2 = vca.addLocation(true);
+
+        for (int i = 0 ; i <= threshold ; i++) {
+            vca.setSuccessor(q0, i, 'a', q0);
+        }
+        for (Character internal : alphabet.getInternalSymbols()) {
+            vca.setSuccessor(q0, threshold, internal, q1);
+            vca.setSuccessor(q1, threshold, internal, q1);
+        }
+        vca.setSuccessor(q0, threshold, 'b', q2);
+        vca.setSuccessor(q1, threshold, 'b', q2);
+        for (int i = 1 ; i <= threshold ; i++) {
+            vca.setSuccessor(q2, i, 'b', q2);
+        }
+
+        return vca;
+    }
+
+    /**
+     * Creates a learner for the target, using a simulator as membership oracle.
+     * @param target The target
+     * @return The learner
+     */
+    static LearnerVCA<Character> createLearner(VCA<?, Character> target) {
+        return new LearnerVCA<>(target.getAlphabet(), new SimulatorOracle<>(target), new PartialEquivalenceOracle<>(target));
+    }
+
+    /**
+     * Creates an experiment learning the target
+     * @param learner The learner to use
+     * @param target The target
+     * @return The experiment
+     */
+    static VCAExperiment<Character> createExperiment(LearnerVCA<Character> learner, VCA<?, Character> target) {
+        return new VCAExperiment<>(learner, new EquivalenceVCAOracle<>(target), target.getAlphabet());
+    }
+}
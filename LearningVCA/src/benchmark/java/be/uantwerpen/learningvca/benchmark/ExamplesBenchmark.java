@@ -0,0 +1,69 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.uantwerpen.learningvca.vca.VCA;
+
+/**
+ * Measures a complete learning experiment on every VCA of the examples package.
+ * @author Gaëtan Staquet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExamplesBenchmark {
+    @Param({
+        "ExampleFourDeltas",
+        "ExampleInternalLoop",
+        "ExampleRegular",
+        "ExampleTwoCalls",
+        "ExampleVariableThreshold",
+        "ExampleWithInternals",
+        "ExampleWithoutInternals"
+    })
+    public String example;
+
+    private VCA<?, Character> target;
+
+    @Setup
+    public void setup() {
+        target = BenchmarkTargets.getExample(example);
+    }
+
+    @Benchmark
+    public VCA<?, Character> experimentRun() {
+        return BenchmarkTargets.createExperiment(BenchmarkTargets.createLearner(target), target).run();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
+import be.uantwerpen.learningvca.experiment.VCAExperiment;
+import be.uantwerpen.learningvca.learner.CounterexampleHandlers;
+import be.uantwerpen.learningvca.learner.DiscriminationTreeLearnerVCA;
+import be.uantwerpen.learningvca.learner.LearnerVCA;
+import be.uantwerpen.learningvca.learner.VCALearner;
+import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle;
+import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle.CounterexampleMode;
+import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.filter.statistic.oracle.CounterOracle;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import net.automatalib.automata.fsa.DFA;
+
+/**
+ * Measures the learning algorithm on random targets generated by {@link RandomVCAGenerator}.
+ * 
+ * The numbers of membership queries and of saved equivalence queries are reported as a secondary result of {@link #experimentRun(Queries)} and the memory can be observed with JMH's profilers (for instance, {@code -prof gc}).
+ * @author Gaëtan Staquet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class RandomTargetsBenchmark {
+    @Param({"4", "8", "16"})
+    public int numLocations;
+
+    @Param({"1", "2"})
+    public int threshold;
+
+    @Param({"0.5"})
+    public double density;
+
+    @Param({"1"})
+    public long seed;
+
+    @Param({"SHORTEST", "MINIMAL_HEIGHT"})
+    public CounterexampleMode counterexampleMode;
+
+    @Param({"ALL_PREFIXES_AND_SUFFIXES", "RIVEST_SCHAPIRE"})
+    public CounterexampleHandlers counterexampleHandler;
+
+    /**
+     * The learner: "table" for {@link LearnerVCA} (with the counterexample handler) or "tree" for {@link DiscriminationTreeLearnerVCA}
+     */
+    @Param({"table", "tree"})
+    public String learnerType;
+
+    /**
+     * Whether the hypotheses are checked in parallel, in the common ForkJoin pool
+     */
+    @Param({"false", "true"})
+    public boolean parallelHypotheses;
+
+    private DefaultVCA<String> target;
+
+    @Setup
+    public void setup() {
+        target = new RandomVCAGenerator(seed).generate(numLocations, threshold, 1, 1, 1, density);
+    }
+
+    /**
+     * Reports the number of membership queries and the number of saved equivalence queries per run of the learner, next to the time
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Queries {
+        public long membershipQueries;
+        public long savedEquivalenceQueries;
+    }
+
+    @Benchmark
+    public VCA<?, String> experimentRun(Queries queries) {
+        CounterOracle<String, Boolean> membershipOracle = new CounterOracle<>(new SimulatorOracle<>(target), "membership queries");
+        VCALearner<String> learner;
+        if (learnerType.equals("tree")) {
+            learner = new DiscriminationTreeLearnerVCA<>(target.getAlphabet(), membershipOracle, new PartialEquivalenceOracle<>(target));
+        }
+        else {
+            learner = new LearnerVCA<>(target.getAlphabet(), membershipOracle, new PartialEquivalenceOracle<>(target), counterexampleHandler);
+        }
+        VCAExperiment<String> experiment = new VCAExperiment<>(learner, new EquivalenceVCAOracle<>(target, counterexampleMode), target.getAlphabet());
+        experiment.setParallelHypotheses(parallelHypotheses);
+        VCA<?, String> result = experiment.run();
+        queries.membershipQueries += membershipOracle.getCount();
+        queries.savedEquivalenceQueries += experiment.getSavedEquivalenceQueries().getCount();
+        return result;
+    }
+
+    @Benchmark
+    public DFA<?, String> toLimitedBehaviorGraph() {
+        return target.toLimitedBehaviorGraph(2 * threshold + 2);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.uantwerpen.learningvca.behaviorgraph.Description;
+import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
+import be.uantwerpen.learningvca.learner.LearnerVCA;
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationRow;
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationTable;
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationTableBoolean;
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.ProductVCA;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.datastructure.observationtable.Row;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.ts.acceptors.AcceptanceCombiner;
+import net.automatalib.words.Word;
+
+/**
+ * Measures the hot paths of the learning algorithm on targets of growing threshold and alphabet size.
+ * 
+ * The targets are built by {@link BenchmarkTargets#getTarget(int, int)}.
+ * The behavior graph, the descriptions and the observation table used by the benchmarks are the ones obtained at the end of a learning experiment.
+ * @author Gaëtan Staquet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ScalingBenchmark {
+    @Param({"1", "3", "5"})
+    public int threshold;
+
+    @Param({"2", "4", "8"})
+    public int alphabetSize;
+
+    private DefaultVCA<Character> target;
+    private VCA<?, Character> productDifferent;
+    private VCA<?, Character> productSame;
+    private int levelLimit;
+    private LimitedBehaviorGraph<Character> limitedBehaviorGraph;
+    private List<Word<Character>> shortPrefixes;
+    private List<Word<Character>> suffixes;
+    private List<Integer> suffixesLevels;
+
+    @Setup
+    public void setup() {
+        target = BenchmarkTargets.getTarget(threshold, alphabetSize);
+        DefaultVCA<Character> other = BenchmarkTargets.getTarget(threshold + 1, alphabetSize);
+        productDifferent = new ProductVCA<>(target.getAlphabet(), target, other, AcceptanceCombiner.XOR);
+        productSame = new ProductVCA<>(target.getAlphabet(), target, BenchmarkTargets.getTarget(threshold, alphabetSize), AcceptanceCombiner.XOR);
+
+        LearnerVCA<Character> learner = BenchmarkTargets.createLearner(target);
+        BenchmarkTargets.createExperiment(learner, target).run();
+        StratifiedObservationTable<Character, Boolean> table = learner.getObservationTable();
+
+        levelLimit = table.getLevelLimit();
+        limitedBehaviorGraph = table.toLimitedBehaviorGraph();
+
+        shortPrefixes = new ArrayList<>();
+        suffixes = new ArrayList<>();
+        suffixesLevels = new ArrayList<>();
+        for (int level = 0 ; level <= levelLimit ; level++) {
+            for (StratifiedObservationRow<Character> row : table.getShortPrefixRows(level)) {
+                shortPrefixes.add(row.getLabel());
+            }
+            for (Word<Character> suffix : table.getSuffixes(level)) {
+                suffixes.add(suffix);
+                suffixesLevels.add(level);
+            }
+        }
+        // The short prefixes are prefix-closed. Adding them by increasing length ensures the level limit of the table grows as needed
+        shortPrefixes.sort(Comparator.comparingInt(Word::length));
+    }
+
+    /**
+     * An observation table containing the short prefixes of the learnt table, but only the empty word as suffix.
+     * 
+     * A new table is created before each invocation, since adding suffixes modifies it.
+     */
+    @State(Scope.Thread)
+    public static class TableState {
+        StratifiedObservationTable<Character, Boolean> table;
+        MembershipOracle<Character, Boolean> oracle;
+
+        @Setup(Level.Invocation)
+        public void setup(ScalingBenchmark benchmark) {
+            oracle = new SimulatorOracle<>(benchmark.target);
+            table = new StratifiedObservationTableBoolean<>(benchmark.target.getAlphabet());
+            table.initialize(Collections.singletonList(Word.epsilon()), Collections.singletonList(Word.epsilon()), oracle);
+            table.addShortPrefixes(benchmark.shortPrefixes, oracle);
+        }
+    }
+
+    @Benchmark
+    public VCA<?, Character> experimentRun() {
+        return BenchmarkTargets.createExperiment(BenchmarkTargets.createLearner(target), target).run();
+    }
+
+    @Benchmark
+    public DFA<?, Character> toLimitedBehaviorGraph() {
+        return target.toLimitedBehaviorGraph(levelLimit);
+    }
+
+    @Benchmark
+    public Word<Character> getAcceptedWordNonEmptyProduct() {
+        return productDifferent.getAcceptedWord();
+    }
+
+    @Benchmark
+    public Word<Character> getAcceptedWordEmptyProduct() {
+        return productSame.getAcceptedWord();
+    }
+
+    @Benchmark
+    public List<Description<Character>> getPeriodicDescriptions() {
+        return limitedBehaviorGraph.getPeriodicDescriptions();
+    }
+
+    @Benchmark
+    public List<List<Row<Character>>> addSuffixes(TableState state) {
+        return state.table.addSuffixes(suffixes, suffixesLevels, state.oracle);
+    }
+}
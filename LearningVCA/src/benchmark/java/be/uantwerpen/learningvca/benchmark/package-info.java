@@ -0,0 +1,23 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+/**
+ * Contains the JMH benchmarks.
+ * 
+ * They are only compiled with the {@code benchmark} Maven profile.
+ */
+package be.uantwerpen.learningvca.benchmark;
@@ -26,7 +26,9 @@ import be.uantwerpen.learningvca.learner.LearnerVCA;
 import be.uantwerpen.learningvca.observationtable.writer.StratifiedObservationTableASCIIWriter;
 import be.uantwerpen.learningvca.observationtable.writer.StratifiedObservationTableHTMLWriter;
 import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle;
+import be.uantwerpen.learningvca.oracles.ParallelMembershipOracle;
 import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
+import be.uantwerpen.learningvca.oracles.VCACacheOracle;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.filter.statistic.oracle.CounterOracle;
@@ -49,12 +51,13 @@ public class LearningVCA {
         VCA<?, Character> sul = ExampleWithInternals.getVCA();
         VPDAlphabet<Character> alphabet = sul.getAlphabet();
 
-        MembershipOracle<Character, Boolean> membershipOracle = new SimulatorOracle<>(sul);
+        MembershipOracle<Character, Boolean> membershipOracle = new ParallelMembershipOracle<>(new SimulatorOracle<>(sul));
         CounterOracle<Character, Boolean> membershipOracleCounter = new CounterOracle<>(membershipOracle, "membership queries");
+        VCACacheOracle<Character> cacheOracle = new VCACacheOracle<>(alphabet, membershipOracleCounter);
         PartialEquivalenceOracle<Character> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
         EquivalenceVCAOracle<Character> equivalenceVCAOracle = new EquivalenceVCAOracle<>(sul);
 
-        LearnerVCA<Character> learner = new LearnerVCA<>(alphabet, membershipOracleCounter, partialEquivalenceOracle);
+        LearnerVCA<Character> learner = new LearnerVCA<>(alphabet, cacheOracle, partialEquivalenceOracle);
 
         VCAExperiment<Character> experiment = new VCAExperiment<>(learner, equivalenceVCAOracle, alphabet);
         experiment.setLog(true);
@@ -67,6 +70,9 @@ public class LearningVCA {
         System.out.println(SimpleProfiler.getResults());
         System.out.println(experiment.getRounds().getSummary());
         System.out.println(membershipOracleCounter.getStatisticalData().getSummary());
+        System.out.println(cacheOracle.getHitCounter().getSummary());
+        System.out.println(cacheOracle.getMissCounter().getSummary());
+        System.out.println(cacheOracle.getShortCircuitCounter().getSummary());
 
         System.out.println("States: " + answer.size());
         System.out.println("Sigma: " + alphabet.size());
@@ -164,13 +164,16 @@ public class Description<I extends Comparable<I>> {
             forEach(state -> state.setIsAccepting(true))
         ;
 
+        int[][] symbolIndices = translateSymbolIndices(alphabet);
+
         // delta
         for (int i = 1 ; i <= K ; i++) {
-            for (I symbol : alphabet) {
+            for (int s = 0 ; s < alphabet.size() ; s++) {
+                I symbol = alphabet.getSymbol(s);
                 Location start = states.get(i - 1);
                 // For every transition function
                 for (int j = 0 ; j < m ; j++) {
-                    int tau = tauMappings.get(j).getTransition(i, symbol);
+                    int tau = getTransition(j, i, symbolIndices[j][s]);
                     if (tau == -1) {
                         continue;
                     }
@@ -182,6 +185,55 @@ public class Description<I extends Comparable<I>> {
         return vca;
     }
 
+    /**
+     * Translates the indices of the symbols in the given alphabet into the indices used by each tau mapping.
+     * 
+     * The tau mappings store their transitions using the symbol indices of their own alphabet, which may not have the same order.
+     * A symbol that is not in the alphabet of a tau mapping has the index -1.
+     * @param alphabet The alphabet
+     * @return An array such that array[j][s] is the index, in the alphabet of the j-th tau mapping, of the s-th symbol of the given alphabet
+     */
+    private int[][] translateSymbolIndices(VPDAlphabet<I> alphabet) {
+        int[][] symbolIndices = new int[tauMappings.size()][];
+        VPDAlphabet<I> previousAlphabet = null;
+        int[] previousIndices = null;
+        for (int j = 0 ; j < tauMappings.size() ; j++) {
+            VPDAlphabet<I> tauAlphabet = tauMappings.get(j).getAlphabet();
+            if (tauAlphabet != previousAlphabet) {
+                previousAlphabet = tauAlphabet;
+                previousIndices = new int[alphabet.size()];
+                for (int s = 0 ; s < alphabet.size() ; s++) {
+                    I symbol = alphabet.getSymbol(s);
+                    if (tauAlphabet == alphabet) {
+                        previousIndices[s] = s;
+                    }
+                    else if (tauAlphabet.containsSymbol(symbol)) {
+                        previousIndices[s] = tauAlphabet.getSymbolIndex(symbol);
+                    }
+                    else {
+                        previousIndices[s] = -1;
+                    }
+                }
+            }
+            symbolIndices[j] = previousIndices;
+        }
+        return symbolIndices;
+    }
+
+    /**
+     * Gets the target of the transition in the j-th tau mapping, or -1 if there is no defined transition
+     * @param j The index of the tau mapping
+     * @param start The starting equivalence class
+     * @param symbolIndex The index of the symbol in the alphabet of the tau mapping, or -1 if the symbol is not in that alphabet
+     * @return -1 if there is no transition defined, or the target equivalence class
+     */
+    private int getTransition(int j, int start, int symbolIndex) {
+        if (symbolIndex == -1) {
+            return -1;
+        }
+        return tauMappings.get(j).getTransitionByIndex(start, symbolIndex);
+    }
+
     /**
      * Constructs a m-VCA accepting the same language as the behavior graph described.
      * @param alphabet The input alphabet of the VCA
@@ -215,18 +267,29 @@ public class Description<I extends Comparable<I>> {
             }
         }
 
+        // The symbols are processed by index, to avoid searching them in the alphabet
+        int numberOfSymbols = alphabet.size();
+        boolean[] isCall = new boolean[numberOfSymbols];
+        boolean[] isReturn = new boolean[numberOfSymbols];
+        for (int s = 0 ; s < numberOfSymbols ; s++) {
+            isCall[s] = alphabet.isCallSymbol(alphabet.getSymbol(s));
+            isReturn[s] = alphabet.isReturnSymbol(alphabet.getSymbol(s));
+        }
+        int[][] symbolIndices = translateSymbolIndices(alphabet);
+
         // delta
         for (int i = 1 ; i <= K ; i++) {
             for (int r = 0 ; r <= k - 1 ; r++) {
-                for (I a : alphabet) {
+                for (int s = 0 ; s < numberOfSymbols ; s++) {
+                    I a = alphabet.getSymbol(s);
                     Location start = states.get(i - 1).get(r);
                     // Every transition function except delta_m
                     for (int j = 0 ; j <= m - 1 ; j++) {
-                        int tau = tauMappings.get(j).getTransition(i, a);
+                        int tau = getTransition(j, i, symbolIndices[j][s]);
                         if (tau == -1) {
                             continue;
                         }
-                        if (alphabet.isCallSymbol(a)) {
+                        if (isCall[s]) {
                             if (j == m - 1) {
                                 vca.setCallSuccessor(start, j, a, states.get(tau - 1).get(0));
                             }
@@ -234,7 +297,7 @@ public class Description<I extends Comparable<I>> {
                                 vca.setCallSuccessor(start, j, a, states.get(tau - 1).get(k - 1));
                             }
                         }
-                        else if (alphabet.isReturnSymbol(a)) {
+                        else if (isReturn[s]) {
                             vca.setReturnSuccessor(start, j, a, states.get(tau - 1).get(k - 1));
                         }
                         else {
@@ -243,15 +306,15 @@ public class Description<I extends Comparable<I>> {
                     }
 
                     // delta_m
-                    int tau = tauMappings.get(m + r).getTransition(i, a);
+                    int tau = getTransition(m + r, i, symbolIndices[m + r][s]);
                     if (tau == -1) {
                         continue;
                     }
                     // Math.floorMod returns the modulus (so, it is always positive)
-                    if (alphabet.isCallSymbol(a)) {
+                    if (isCall[s]) {
                         vca.setCallSuccessor(start, m, a, states.get(tau - 1).get(Math.floorMod(r + 1, k)));
                     }
-                    else if (alphabet.isReturnSymbol(a)) {
+                    else if (isReturn[s]) {
                         vca.setReturnSuccessor(start, m, a, states.get(tau - 1).get(Math.floorMod(r - 1, k)));
                     }
                     else {
@@ -17,21 +17,24 @@
  */
 package be.uantwerpen.learningvca.behaviorgraph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Queue;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import javax.annotation.Nullable;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 
+import be.uantwerpen.learningvca.vca.PartitionRefinement;
 import net.automatalib.automata.fsa.impl.compact.CompactDFA;
 import net.automatalib.words.VPDAlphabet;
 
@@ -97,23 +100,23 @@ public class LimitedBehaviorGraph<I extends Comparable<I>> extends CompactDFA<I>
         getStates(0).stream().forEach(state -> nu_mapping.put(state, nu_mapping.size() + 1));
         
         // Then, we create the unique tau mapping
-        TauMapping<I> tauMapping = new TauMapping<>(width);
+        TauMapping.Builder<I> tauMapping = new TauMapping.Builder<>(getInputAlphabet(), width);
         getStates(0).stream().
             forEach(state -> {
-                getInputAlphabet().stream().forEach(symbol -> {
-                    Integer targetState = getTransition(state, symbol);
+                for (int i = 0 ; i < getInputAlphabet().size() ; i++) {
+                    Integer targetState = getTransition(state, i);
                     if (targetState != null) {
                         int startClass = nu_mapping.get(state);
                         int targetClass = nu_mapping.get(targetState);
-                        tauMapping.addTransition(startClass, symbol, targetClass);
+                        tauMapping.addTransitionByIndex(startClass, i, targetClass);
                     }
-                });
+                }
             })
         ;
 
         // Finally, we can create the description
         Description<I> description = new Description<>(1, 0, width);
-        description.addTauMappings(Arrays.asList(tauMapping));
+        description.addTauMappings(Arrays.asList(tauMapping.build()));
         getStates(0).stream().
             filter(state -> isAccepting(state)).        // We keep only the accepting states
             mapToInt(state -> nu_mapping.get(state)).   // We get the equivalence class number for each state
@@ -124,101 +127,219 @@ public class LimitedBehaviorGraph<I extends Comparable<I>> extends CompactDFA<I>
     }
 
     /**
-     * Gets every possible periodic description with a period and the given offset
-     * @param m The offset of the description to build
-     * @param width The width of the behavior graph
-     * @return A list with every description
+     * Iterates over the periodic descriptions of the behavior graph.
+     * 
+     * A description is only built when it is requested.
+     * The nu mappings and the tau mappings of the levels are computed once and shared by every candidate (m, k).
+     * Only the last tau mapping (which closes the period) depends on the candidate.
      */
-    private List<Description<I>> getPeriodicDescriptionsWithPeriod(int m, int width) {
-        List<Description<I>> descriptions = new ArrayList<>();
-        for (int k = 1 ; m + 2 * k - 1 <= threshold ; k++) {
-            int limit = m + k - 1;
-            // First, we create the nu mappings
-            List<Map<Integer, Integer>> nu_mappings = new ArrayList<>(m + k);
-            for (int i = 0 ; i <= limit ; i++) {
-                nu_mappings.add(new HashMap<>());
+    private class PeriodicDescriptionIterator implements Iterator<Description<I>> {
+        private final int width;
+        private final int[] widths;
+        private final int[] levelProfiles;
+        private final int[] nuMapping;
+        private final List<TauMapping<I>> tauMappings;
+        private final Map<TauMapping<I>, TauMapping<I>> lastTauMappings;
+        private final List<int[]> candidates;
+        private int nextCandidate;
+        private Description<I> nextDescription;
+
+        /**
+         * The constructor
+         * @param sortByLikelihood If true, the candidates whose levels have periodic summaries are tried first. Otherwise, the candidates are sorted by offset, then by period
+         */
+        public PeriodicDescriptionIterator(boolean sortByLikelihood) {
+            this.width = getWidth();
+            this.widths = statesByLevel.stream().mapToInt(l -> l.size()).toArray();
+            this.tauMappings = new ArrayList<>();
+            this.lastTauMappings = new HashMap<>();
+            this.nextCandidate = 0;
+            this.nextDescription = null;
+
+            // nu_i gives every state of the level i its position in the level (starting from 1)
+            this.nuMapping = new int[size()];
+            for (List<Integer> states : statesByLevel) {
+                for (int i = 0 ; i < states.size() ; i++) {
+                    nuMapping[states.get(i)] = i + 1;
+                }
             }
 
-            IntStream.range(0, limit + 1).
-                forEach(level -> {
-                    Map<Integer, Integer> nu_i = nu_mappings.get(level);
-                    getStates(level).stream().
-                        forEach(state -> nu_i.put(state, nu_i.size() + 1)
-                    );
+            this.candidates = new ArrayList<>();
+            for (int m = 0 ; m - 1 <= threshold ; m++) {
+                for (int k = 1 ; m + 2 * k - 1 <= threshold ; k++) {
+                    // Every state on level m must have an image on level m + k
+                    if (widths[m] <= widths[m + k]) {
+                        candidates.add(new int[] {m, k});
+                    }
                 }
-            );
-
-            List<TauMapping<I>> tauMappings = new ArrayList<>(m + k);
-            IntStream.range(0, limit).
-                forEach(i -> tauMappings.add(new TauMapping<>(width))
-            );
-
-            // We create the tau mappings up to m + k - 2
-            IntStream.range(0, limit).
-                forEach(level -> {
-                    for (Integer startState : getStates(level)) {
-                        TauMapping<I> tauMapping = tauMappings.get(level);
-                        for (I symbol : getInputAlphabet()) {
-                            Integer targetState = getTransition(startState, symbol);
-                            if (targetState != null) {
-                                int targetLevel = getLevel(targetState);
-                                int startClass = nu_mappings.get(level).get(startState);
-                                int targetClass = nu_mappings.get(targetLevel).get(targetState);
-                                tauMapping.addTransition(startClass, symbol, targetClass);
-                            }
+            }
+            if (sortByLikelihood) {
+                this.levelProfiles = computeLevelProfiles();
+                // The sort is stable. So, the candidates keep the order (m, k) in each group
+                candidates.sort(Comparator.comparing((int[] candidate) -> !hasPeriodicProfiles(candidate[0], candidate[1])));
+            }
+            else {
+                this.levelProfiles = null;
+            }
+        }
+
+        /**
+         * Computes a summary of each level: its number of states, its number of accepting states and, for each symbol, its number of defined transitions.
+         * 
+         * Two levels that are related by the period of a correct description have the same summary.
+         * @return The summary of each level
+         */
+        private int[] computeLevelProfiles() {
+            VPDAlphabet<I> alphabet = getInputAlphabet();
+            int[] profiles = new int[statesByLevel.size()];
+            for (int level = 0 ; level < statesByLevel.size() ; level++) {
+                List<Integer> states = getStates(level);
+                int[] counts = new int[alphabet.size() + 2];
+                counts[0] = states.size();
+                for (int state : states) {
+                    if (isAccepting(state)) {
+                        counts[1]++;
+                    }
+                    for (int i = 0 ; i < alphabet.size() ; i++) {
+                        if (getTransition(state, i) != null) {
+                            counts[i + 2]++;
                         }
                     }
                 }
-            );
-            if (k > 0) {
-                // And we find the last tau mapping thanks to an isomorphism
-                TauMapping<I> lastTauMapping = getEndOfPeriod(m, k, width, nu_mappings);
-                if (lastTauMapping == null) {
-                    // It was impossible to find an isomorphism. So, the description must be rejected
-                    continue;
+                profiles[level] = Arrays.hashCode(counts);
+            }
+            return profiles;
+        }
+
+        /**
+         * Checks whether the summaries of the levels repeat with the period k from the level m, below the threshold.
+         * 
+         * The last level is ignored, as the states that can only be reached by going above the threshold are missing.
+         * @param m The offset
+         * @param k The period
+         * @return True iff the summaries of the levels are periodic
+         */
+        private boolean hasPeriodicProfiles(int m, int k) {
+            for (int level = m ; level + k < threshold ; level++) {
+                if (levelProfiles[level] != levelProfiles[level + k]) {
+                    return false;
                 }
-                tauMappings.add(lastTauMapping);
             }
+            return true;
+        }
+
+        /**
+         * Gets the tau mapping of the given level, following the transitions of the behavior graph.
+         * @param level The level
+         * @return The tau mapping
+         */
+        private TauMapping<I> getTauMapping(int level) {
+            while (tauMappings.size() <= level) {
+                int currentLevel = tauMappings.size();
+                TauMapping.Builder<I> tauMapping = new TauMapping.Builder<>(getInputAlphabet(), width);
+                for (int startState : getStates(currentLevel)) {
+                    for (int i = 0 ; i < getInputAlphabet().size() ; i++) {
+                        Integer targetState = getTransition(startState, i);
+                        if (targetState != null) {
+                            tauMapping.addTransitionByIndex(nuMapping[startState], i, nuMapping[targetState]);
+                        }
+                    }
+                }
+                tauMappings.add(tauMapping.build());
+            }
+            return tauMappings.get(level);
+        }
+
+        /**
+         * Builds the description with offset m and period k
+         * @param m The offset
+         * @param k The period
+         * @return The description, or null if it is impossible to close the period
+         */
+        @Nullable
+        private Description<I> createDescription(int m, int k) {
+            // We find the last tau mapping thanks to an isomorphism
+            TauMapping<I> lastTauMapping = getEndOfPeriod(m, k, width, nuMapping);
+            if (lastTauMapping == null) {
+                return null;
+            }
+            // The descriptions share the identical tau mappings
+            lastTauMapping = lastTauMappings.computeIfAbsent(lastTauMapping, tauMapping -> tauMapping);
+
+            int limit = m + k - 1;
+            List<TauMapping<I>> descriptionTauMappings = new ArrayList<>(m + k);
+            for (int level = 0 ; level < limit ; level++) {
+                descriptionTauMappings.add(getTauMapping(level));
+            }
+            descriptionTauMappings.add(lastTauMapping);
 
             Description<I> description = new Description<>(m, k, width);
-            description.addTauMappings(tauMappings);
-            
-            IntStream.range(0, limit + 1).
-                forEach(level -> {
-                    getStates(level).stream().
-                        filter(state -> isAccepting(state)).
-                        mapToInt(state -> nu_mappings.get(level).get(state)).
-                        forEach(equivalenceClass -> description.addAcceptingState(level, equivalenceClass));
+            description.addTauMappings(descriptionTauMappings);
+            for (int level = 0 ; level <= limit ; level++) {
+                for (int state : getStates(level)) {
+                    if (isAccepting(state)) {
+                        description.addAcceptingState(level, nuMapping[state]);
+                    }
                 }
-            );
+            }
 
             int initialLevel = getLevel(getInitialState());
-            nu_mappings.get(initialLevel);
-            description.setInitialState(initialLevel, nu_mappings.get(initialLevel).get(getInitialState()));
-            descriptions.add(description);
+            description.setInitialState(initialLevel, nuMapping[getInitialState()]);
+            return description;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextDescription == null && nextCandidate < candidates.size()) {
+                int[] candidate = candidates.get(nextCandidate++);
+                nextDescription = createDescription(candidate[0], candidate[1]);
+            }
+            return nextDescription != null;
+        }
+
+        @Override
+        public Description<I> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Description<I> description = nextDescription;
+            nextDescription = null;
+            return description;
         }
-        return descriptions;
     }
 
     /**
-     * Constructs every possible periodic description of this behavior graph
+     * Constructs every possible periodic description of this behavior graph.
+     * 
+     * The descriptions are sorted by offset, then by period.
      * @return A list with every periodic description
      */
     public List<Description<I>> getPeriodicDescriptions() {
-        int width = getWidth();
+        List<Description<I>> descriptions = new ArrayList<>();
+        getPeriodicDescriptions(false).forEachRemaining(descriptions::add);
+        return descriptions;
+    }
+
+    /**
+     * Iterates over every possible periodic description of this behavior graph.
+     * 
+     * The descriptions are built lazily, when they are requested.
+     * The candidates whose levels look periodic (same number of states, of accepting states and of transitions for each symbol), which are the most likely to be correct, are given first.
+     * @return An iterator over the periodic descriptions
+     */
+    public Iterator<Description<I>> getPeriodicDescriptionIterator() {
+        return getPeriodicDescriptions(true);
+    }
+
+    private Iterator<Description<I>> getPeriodicDescriptions(boolean sortByLikelihood) {
         if (getInputAlphabet().getNumCalls() == 0) {
             // If we don't have any call, the behavior graph has exactly one level
             // So, we can not find a periodic description
             // But, we can find a non-periodic description (just the level 0)
-            return Arrays.asList(getNonperiodicDescription(width));
-        }
-
-        List<Description<I>> descriptions = new ArrayList<>();
-        for (int m = 0 ; m - 1 <= threshold ; m++) {
-            descriptions.addAll(getPeriodicDescriptionsWithPeriod(m, width));
+            return Collections.singletonList(getNonperiodicDescription(getWidth())).iterator();
         }
 
-        return descriptions;
+        return new PeriodicDescriptionIterator(sortByLikelihood);
     }
 
     /**
@@ -226,41 +347,50 @@ public class LimitedBehaviorGraph<I extends Comparable<I>> extends CompactDFA<I>
      * @param m The offset of the description
      * @param k The period of the description
      * @param width The width of the behavior graph
-     * @param nu_mappings The nu mappings
+     * @param nuMapping The nu mappings, indexed by the states
      * @return A tau mapping, or null if it is impossible to build such a mapping
      */
     @Nullable
-    private TauMapping<I> getEndOfPeriod(int m, int k, int width, List<Map<Integer, Integer>> nu_mappings) {
+    private TauMapping<I> getEndOfPeriod(int m, int k, int width, int[] nuMapping) {
         if (k == 0) {
             return null;
         }
 
+        // We colour the states. The images of the states on level m must have the same colours
+        int[] colours = computeColours(m, k);
+        Map<Integer, Integer> availableImages = new HashMap<>();
+        getStates(m + k).forEach(state -> availableImages.merge(colours[state], 1, Integer::sum));
+        for (int state : getStates(m)) {
+            if (availableImages.merge(colours[state], -1, Integer::sum) < 0) {
+                // There are not enough states with this colour on level m + k
+                return null;
+            }
+        }
+
         // We create the isomorphism
         BiMap<Integer, Integer> isomorphism = HashBiMap.create();
-        List<Integer> freeStates = new ArrayList<>();
-        freeStates.addAll(getStates(m));
-
-        while (!freeStates.isEmpty()) {
-            Integer startingState = freeStates.get(0);
-            BiMap<Integer, Integer> partial = findIsomorphism(m, k, startingState, isomorphism);
+        for (int startingState : getStates(m)) {
+            if (isomorphism.containsKey(startingState)) {
+                continue;
+            }
+            BiMap<Integer, Integer> partial = findIsomorphism(m, k, startingState, isomorphism, colours);
             if (partial == null) {
                 // Impossible to find an isomorphism
                 return null;
             }
             isomorphism.putAll(partial);
-            freeStates.removeAll(partial.keySet());
         }
 
         // We create the tau mapping
-        TauMapping<I> tauMapping = new TauMapping<>(width);
         VPDAlphabet<I> alphabet = getInputAlphabet();
+        TauMapping.Builder<I> tauMapping = new TauMapping.Builder<>(alphabet, width);
 
         for (int startingState : getStates(m + k - 1)) {
-            int startClass = nu_mappings.get(getLevel(startingState)).get(startingState);
-            for (I symbol : alphabet) {
-                Integer targetState = getTransition(startingState, symbol);
+            int startClass = nuMapping[startingState];
+            for (int i = 0 ; i < alphabet.size() ; i++) {
+                Integer targetState = getTransition(startingState, i);
                 if (targetState != null) {
-                    if (alphabet.isCallSymbol(symbol)) {
+                    if (alphabet.isCallSymbol(alphabet.getSymbol(i))) {
                         // If we process a call symbol, we must follow the isomorphism
                         targetState = isomorphism.inverse().get(targetState);
                         if (targetState == null) {
@@ -268,119 +398,158 @@ public class LimitedBehaviorGraph<I extends Comparable<I>> extends CompactDFA<I>
                             return null;
                         }
                     }
-                    int targetClass = nu_mappings.get(getLevel(targetState)).get(targetState);
-                    tauMapping.addTransition(startClass, symbol, targetClass);
+                    int targetClass = nuMapping[targetState];
+                    tauMapping.addTransitionByIndex(startClass, i, targetClass);
                 }
             }
         }
-        return tauMapping;
+        return tauMapping.build();
+    }
+
+    /**
+     * Computes canonical colours for the states in the subgraphs induced by the levels m to m + k - 1 and by the levels m + k to m + 2k - 1.
+     * 
+     * Initially, a state is coloured by its level relative to the start of its subgraph.
+     * Then, the colours are refined until they are stable: two states keep the same colour iff they have the same colour and, for each symbol, either both have no transition or their successors have the same colour.
+     * The refinement is done by a {@link PartitionRefinement}, in which the missing transitions (and the transitions leaving the subgraphs) go to an extra state.
+     * The colours are shared by both subgraphs.
+     * If the isomorphism maps a state to another one, both states have the same colour.
+     * @param m The offset of the description
+     * @param k The period of the description
+     * @return The colour of each state, or -1 if the state is not in the subgraphs
+     */
+    private int[] computeColours(int m, int k) {
+        VPDAlphabet<I> alphabet = getInputAlphabet();
+        int numberOfSymbols = alphabet.size();
+
+        // The states of the subgraphs are numbered from 0. The extra state has the last number
+        int[] indices = new int[size()];
+        Arrays.fill(indices, -1);
+        int numberOfStates = 0;
+        for (int level = m ; level <= m + 2 * k - 1 ; level++) {
+            numberOfStates += getStates(level).size();
+        }
+        int[] states = new int[numberOfStates];
+        int[] initialColours = new int[numberOfStates + 1];
+        int index = 0;
+        for (int level = m ; level <= m + 2 * k - 1 ; level++) {
+            for (int state : getStates(level)) {
+                indices[state] = index;
+                states[index] = state;
+                initialColours[index] = (level - m) % k;
+                index++;
+            }
+        }
+        int none = numberOfStates;
+        initialColours[none] = -1;
+
+        int[] successors = new int[(numberOfStates + 1) * numberOfSymbols];
+        Arrays.fill(successors, none);
+        for (int i = 0 ; i < numberOfStates ; i++) {
+            int relativeLevel = (getLevel(states[i]) - m) % k;
+            for (int symbolIndex = 0 ; symbolIndex < numberOfSymbols ; symbolIndex++) {
+                I symbol = alphabet.getSymbol(symbolIndex);
+                Integer successor = getTransition(states[i], symbolIndex);
+                // The transitions leaving the subgraphs are ignored, as in findIsomorphism
+                if (
+                    successor != null &&
+                    !(alphabet.isCallSymbol(symbol) && relativeLevel == k - 1) &&
+                    !(alphabet.isReturnSymbol(symbol) && relativeLevel == 0)
+                ) {
+                    successors[i * numberOfSymbols + symbolIndex] = indices[successor];
+                }
+            }
+        }
+
+        PartitionRefinement partition = new PartitionRefinement(numberOfStates + 1, numberOfSymbols, successors, initialColours);
+        int[] colours = new int[size()];
+        Arrays.fill(colours, -1);
+        for (int i = 0 ; i < numberOfStates ; i++) {
+            colours[states[i]] = partition.getClassId(i);
+        }
+        return colours;
     }
 
     /**
      * Finds a isomorphism starting from [w]_O
+     * 
+     * Only the states on level m + k with the same colour as [w]_O are tried as its image.
      * @param m The offset of the description
      * @param k The period of the description
      * @param startingState [w]_O. It must not yet be in an isomorphism
      * @param previousIsomorphism The isomorphism already built
+     * @param colours The colours of the states, as computed by {@link #computeColours(int, int)}
      * @return The isomorphism
      */
     @Nullable
-    private BiMap<Integer, Integer> findIsomorphism(int m, int k, int startingState, BiMap<Integer, Integer> previousIsomorphism) {
-        class InQueue {
-            public final int stateInFirst;
-            public final int stateInSecond;
-
-            public InQueue(int stateInFirst, int stateInSecond) {
-                this.stateInFirst = stateInFirst;
-                this.stateInSecond = stateInSecond;
-            }
-
-            @Override
-            public String toString() {
-                return stateInFirst + " " + stateInSecond;
-            }
-        }
-
+    private BiMap<Integer, Integer> findIsomorphism(int m, int k, int startingState, BiMap<Integer, Integer> previousIsomorphism, int[] colours) {
         int targetLevel = m + k;
         VPDAlphabet<I> alphabet = getInputAlphabet();
-        // We consider only the states on level m + k that are not already in an isomorphism as hypothesis
-        List<Integer> statesToConsider = getStates(targetLevel).stream().
-            filter(state -> !previousIsomorphism.containsValue(state)).
-            collect(Collectors.toList());
 
-        for (int targetState : statesToConsider) {
+        for (int targetState : getStates(targetLevel)) {
+            // We consider only the states on level m + k with the same colour that are not already in an isomorphism as hypothesis
+            if (colours[targetState] != colours[startingState] || previousIsomorphism.containsValue(targetState)) {
+                continue;
+            }
+
             BiMap<Integer, Integer> newIsomorphism = HashBiMap.create();
             // We suppose it's an isomorphism and we seek a counterexample
             boolean isIsomorphism = true;
-            Queue<InQueue> queue = new LinkedList<>();
-            queue.add(new InQueue(startingState, targetState));
+            // Every pair in the queue is in the new isomorphism
+            Queue<Integer> queue = new ArrayDeque<>();
+            queue.add(startingState);
             newIsomorphism.put(startingState, targetState);
 
-            InQueue current = null;
-            while ((current = queue.poll()) != null && isIsomorphism) {
-                int currentStateFirst = current.stateInFirst;
+            Integer currentStateFirst = null;
+            while (isIsomorphism && (currentStateFirst = queue.poll()) != null) {
                 int currentLevelFirst = getLevel(currentStateFirst);
-                int currentStateSecond = current.stateInSecond;
-                int currentLevelSecond = getLevel(currentStateSecond);
+                int currentStateSecond = newIsomorphism.get(currentStateFirst);
 
-                for (I symbol : alphabet) {
+                for (int i = 0 ; i < alphabet.size() ; i++) {
+                    I symbol = alphabet.getSymbol(i);
                     // We only keep the subgraphs induced by the levels m to m + k - 1 and by the levels m + k to m + 2k - 1
+                    // Both states have the same relative level
                     if (
-                        (alphabet.isCallSymbol(symbol) && (currentLevelFirst == m + k - 1 || currentLevelSecond == m + 2*k - 1)) ||
-                        (alphabet.isReturnSymbol(symbol) && (currentLevelFirst == m || currentLevelSecond == m + k))
+                        (alphabet.isCallSymbol(symbol) && currentLevelFirst == m + k - 1) ||
+                        (alphabet.isReturnSymbol(symbol) && currentLevelFirst == m)
                     ) {
                         continue;
                     }
 
-                    Integer newStateFirst = getTransition(currentStateFirst, symbol);
-                    Integer newStateSecond = getTransition(currentStateSecond, symbol);
+                    Integer newStateFirst = getTransition(currentStateFirst, i);
+                    Integer newStateSecond = getTransition(currentStateSecond, i);
 
                     if (newStateFirst == null && newStateSecond == null) {
                         // Both transitions are not defined.
                         // So, it's okay
                         continue;
                     }
-                    else if (newStateFirst == null || newStateSecond == null) {
-                        // Only one transition is not defined
-                        // This is not okay
-                        isIsomorphism = false;
-                        break;
-                    }
-
-                    int newLevelFirst = getLevel(newStateFirst);
-                    int newLevelSecond = getLevel(newStateSecond);
-
-                    int movementInFirst = newLevelFirst - currentLevelFirst;
-                    int movementInSecond = newLevelSecond - currentLevelSecond;
-
-                    if (movementInFirst != movementInSecond) {
-                        // The transitions do not lead to the "same" level
+                    else if (newStateFirst == null || newStateSecond == null || colours[newStateFirst] != colours[newStateSecond]) {
+                        // Only one transition is defined, or the successors can not be mapped to each other
                         isIsomorphism = false;
                         break;
                     }
 
                     // If one of the states is already in an isomorphism
                     // And if the values do not coincide, then we don't have an isomorphism
+                    Integer imageInNew = newIsomorphism.get(newStateFirst);
+                    Integer preimageInNew = newIsomorphism.inverse().get(newStateSecond);
+                    Integer imageInPrevious = previousIsomorphism.get(newStateFirst);
+                    Integer preimageInPrevious = previousIsomorphism.inverse().get(newStateSecond);
                     if (
-                        (newIsomorphism.containsKey(newStateFirst) && !newIsomorphism.get(newStateFirst).equals(newStateSecond)) ||
-                        (newIsomorphism.inverse().containsKey(newStateSecond) && !newIsomorphism.inverse().get(newStateSecond).equals(newStateFirst)) ||
-                        (previousIsomorphism.containsKey(newStateFirst) && !previousIsomorphism.get(newStateFirst).equals(newStateSecond)) ||
-                        (previousIsomorphism.inverse().containsKey(newStateSecond) && !previousIsomorphism.inverse().get(newStateSecond).equals(newStateFirst))
+                        (imageInNew != null && !imageInNew.equals(newStateSecond)) ||
+                        (preimageInNew != null && !preimageInNew.equals(newStateFirst)) ||
+                        (imageInPrevious != null && !imageInPrevious.equals(newStateSecond)) ||
+                        (preimageInPrevious != null && !preimageInPrevious.equals(newStateFirst))
                     ) {
                         isIsomorphism = false;
                         break;
                     }
 
-                    if (
-                        !queue.contains(new InQueue(newStateFirst, newStateSecond)) &&
-                        !newIsomorphism.containsKey(newStateFirst) &&
-                        !newIsomorphism.inverse().containsKey(newStateSecond) &&
-                        !previousIsomorphism.containsKey(newStateFirst) &&
-                        !previousIsomorphism.inverse().containsKey(newStateSecond)
-                    ) {
+                    if (imageInNew == null && imageInPrevious == null) {
                         // We don't add the new equivalence classes if they already have been explored or marked for exploration
                         newIsomorphism.put(newStateFirst, newStateSecond);
-                        queue.add(new InQueue(newStateFirst, newStateSecond));
+                        queue.add(newStateFirst);
                     }
                 }
             }
@@ -392,4 +561,4 @@ public class LimitedBehaviorGraph<I extends Comparable<I>> extends CompactDFA<I>
 
         return null;
     }
-}
\ No newline at end of file
+}
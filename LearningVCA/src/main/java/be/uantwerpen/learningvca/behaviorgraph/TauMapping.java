@@ -18,97 +18,97 @@
 package be.uantwerpen.learningvca.behaviorgraph;
 
 import java.security.InvalidParameterException;
-import java.util.Map;
-import java.util.Objects;
-import java.util.TreeMap;
+import java.util.Arrays;
+
+import net.automatalib.words.VPDAlphabet;
 
 /**
  * A mapping tau maps (state, input) to state, in a behavior graph.
  * 
  * States are stored according to a certain mapping nu.
  * That is, states are stored in [1, K], with K the width of the behavior graph.
+ * 
+ * The transitions are stored in an array of size K * |Sigma|, indexed by the state and the index of the symbol in the alphabet.
+ * A mapping can not be modified once it is built. So, it can be shared by multiple descriptions.
+ * See {@link Builder} to construct a mapping.
  * @param <I> Input alphabet type
  * @author Gaëtan Staquet
  */
 public class TauMapping<I extends Comparable<I>> {
     /**
-     * A key in the mapping.
-     * 
-     * A key is a pair (state id, input)
+     * Constructs a tau mapping, transition by transition.
+     * @param <I> Input alphabet type
      */
-    protected class KeyMapping implements Comparable<KeyMapping> {
-        public final int index;
-        public final I input;
+    public static class Builder<I extends Comparable<I>> {
+        private final VPDAlphabet<I> alphabet;
+        private final int K;
+        private final int[] transitions;
 
-        public KeyMapping(int index, I input) {
-            this.index = index;
-            this.input = input;
+        /**
+         * The constructor
+         * @param alphabet The alphabet
+         * @param width K
+         */
+        public Builder(VPDAlphabet<I> alphabet, int width) {
+            this.alphabet = alphabet;
+            this.K = width;
+            this.transitions = new int[width * alphabet.size()];
+            Arrays.fill(transitions, -1);
         }
 
-        @SuppressWarnings("unchecked")
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
+        /**
+         * Adds a transition from start to target when reading the input
+         * @param start The starting state
+         * @param input The input
+         * @param target The target state
+         * @return This builder
+         */
+        public Builder<I> addTransition(int start, I input, int target) {
+            return addTransitionByIndex(start, alphabet.getSymbolIndex(input), target);
+        }
 
-            if (obj.getClass() != getClass()) {
-                return false;
+        /**
+         * Adds a transition from start to target when reading the symbol with the given index in the alphabet
+         * @param start The starting state
+         * @param symbolIndex The index of the input
+         * @param target The target state
+         * @return This builder
+         */
+        public Builder<I> addTransitionByIndex(int start, int symbolIndex, int target) {
+            if (!(1 <= start && start <= K)) {
+                throw new InvalidParameterException("Description of a behavior graph: start must be in [" + 1 + ", " + K + "]. Received: " + start);
+            }
+            if (!(1 <= target && target <= K)) {
+                throw new InvalidParameterException("Description of a behavior graph: target must be in [" + 1 + ", " + K + "]. Received: " + target);
             }
 
-            KeyMapping o = (KeyMapping)obj;
-            return o.index == index && o.input.equals(input);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(index, input);
+            transitions[(start - 1) * alphabet.size() + symbolIndex] = target;
+            return this;
         }
 
-        @Override
-        public int compareTo(TauMapping<I>.KeyMapping o) {
-            if (o.index == this.index) {
-                return this.input.compareTo(o.input);
-            }
-            else if (o.index < this.index) {
-                return -1;
-            }
-            else {
-                return 1;
-            }
+        /**
+         * @return The tau mapping with every transition added so far
+         */
+        public TauMapping<I> build() {
+            return new TauMapping<>(alphabet, K, transitions.clone());
         }
     }
 
-    private final Map<KeyMapping, Integer> mapping;
+    private final VPDAlphabet<I> alphabet;
     private final int K;
+    private final int[] transitions;
 
-    /**
-     * The constructor
-     * @param width K
-     */
-    public TauMapping(int width) {
-        this.mapping = new TreeMap<>();
+    private TauMapping(VPDAlphabet<I> alphabet, int width, int[] transitions) {
+        this.alphabet = alphabet;
         this.K = width;
+        this.transitions = transitions;
     }
 
     /**
-     * Adds a transition from start to target when reading the input
-     * @param start The starting state
-     * @param input The input
-     * @param target The target state
+     * @return The alphabet whose symbol indices are used to store the transitions
      */
-    public void addTransition(int start, I input, int target) {
-        if (!(1 <= start && start <= K)) {
-            throw new InvalidParameterException("Description of a behavior graph: start must be in [" + 1 + ", " + K + "]. Received: " + start);
-        }
-        if (!(1 <= target && target <= K)) {
-            throw new InvalidParameterException("Description of a behavior graph: target must be in [" + 1 + ", " + K + "]. Received: " + target);
-        }
-
-        mapping.put(new KeyMapping(start, input), target);
+    public VPDAlphabet<I> getAlphabet() {
+        return alphabet;
     }
 
     /**
@@ -118,24 +118,59 @@ public class TauMapping<I extends Comparable<I>> {
      * @return -1 if there is no transition defined, or the target equivalence class
      */
     public int getTransition(int start, I input) {
+        return getTransitionByIndex(start, alphabet.getSymbolIndex(input));
+    }
+
+    /**
+     * Gets the target equivalence class of the transition from start reading the symbol with the given index in the alphabet, or -1 if there is no defined transition
+     * @param start The starting equivalence class
+     * @param symbolIndex The index of the input
+     * @return -1 if there is no transition defined, or the target equivalence class
+     */
+    public int getTransitionByIndex(int start, int symbolIndex) {
         if (!(1 <= start && start <= K)) {
             throw new InvalidParameterException("Description of a behavior graph: start must be in [" + 1 + ", " + K + "]. Received: " + start);
         }
 
-        return mapping.getOrDefault(new KeyMapping(start, input), -1);
+        return transitions[(start - 1) * alphabet.size() + symbolIndex];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+
+        TauMapping<?> o = (TauMapping<?>)obj;
+        return o.K == K && Arrays.equals(o.transitions, transitions);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * K + Arrays.hashCode(transitions);
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        if (mapping.size() == 0) {
-            builder.append("Empty mapping");
-        }
-        else {
-            for (var entry : mapping.entrySet()) {
-                builder.append(entry.getKey().index + " --" + entry.getKey().input + "--> " + entry.getValue() + "\n");
+        for (int start = 1 ; start <= K ; start++) {
+            for (int i = 0 ; i < alphabet.size() ; i++) {
+                int target = getTransitionByIndex(start, i);
+                if (target != -1) {
+                    builder.append(start + " --" + alphabet.getSymbol(i) + "--> " + target + "\n");
+                }
             }
         }
+        if (builder.length() == 0) {
+            builder.append("Empty mapping");
+        }
         return builder.toString();
     }
-}
\ No newline at end of file
+}
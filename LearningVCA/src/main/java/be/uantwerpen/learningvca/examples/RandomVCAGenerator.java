@@ -0,0 +1,393 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.examples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.Location;
+import be.uantwerpen.learningvca.vca.PartitionRefinement;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.impl.DefaultVPDAlphabet;
+
+/**
+ * Generates random m-VCAs.
+ * 
+ * The call symbols are named "a0", "a1", ..., the return symbols "b0", "b1", ... and the internal symbols "c0", "c1", ...
+ * 
+ * The generated VCAs satisfy the following properties:
+ *  - Every location is reachable from the initial configuration; and
+ *  - No two locations are equivalent. That is, for every pair of locations, there is a counter value c such that
+ *    the configurations (p, c) and (q, c) are distinguished by a word.
+ * 
+ * The generator is seeded. So, using the same seed and the same parameters always gives the same VCA.
+ * @author Gaëtan Staquet
+ */
+public final class RandomVCAGenerator {
+    private static final int NO_TRANSITION = -1;
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final Random random;
+
+    /**
+     * The constructor
+     * @param seed The seed of the random generator
+     */
+    public RandomVCAGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Gets a pushdown alphabet with the given number of call, return and internal symbols.
+     * @param numCalls The number of call symbols
+     * @param numReturns The number of return symbols
+     * @param numInternals The number of internal symbols
+     * @return The alphabet
+     */
+    public static VPDAlphabet<String> getAlphabet(int numCalls, int numReturns, int numInternals) {
+        return new DefaultVPDAlphabet<>(symbols("c", numInternals), symbols("a", numCalls), symbols("b", numReturns));
+    }
+
+    private static List<String> symbols(String prefix, int number) {
+        List<String> symbols = new ArrayList<>(number);
+        for (int i = 0 ; i < number ; i++) {
+            symbols.add(prefix + i);
+        }
+        return symbols;
+    }
+
+    /**
+     * Generates a random m-VCA.
+     * 
+     * First, a spanning tree over reachable configurations is created so that every location is reachable.
+     * Then, every other transition is defined with a probability equal to the density.
+     * Finally, while some locations are equivalent, some of their transitions are redefined.
+     * @param numLocations The number of locations
+     * @param threshold The threshold m
+     * @param numCalls The number of call symbols
+     * @param numReturns The number of return symbols
+     * @param numInternals The number of internal symbols
+     * @param density The probability (in [0, 1]) that a transition is defined
+     * @return The m-VCA
+     */
+    public DefaultVCA<String> generate(int numLocations, int threshold, int numCalls, int numReturns, int numInternals, double density) {
+        if (numLocations < 1) {
+            throw new IllegalArgumentException("RandomVCAGenerator: the number of locations must be positive. Received: " + numLocations);
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("RandomVCAGenerator: the threshold must be non-negative. Received: " + threshold);
+        }
+        if (numCalls < 0 || numReturns < 0 || numInternals < 0) {
+            throw new IllegalArgumentException("RandomVCAGenerator: the numbers of symbols must be non-negative");
+        }
+        if (numLocations > 1 && numCalls + numInternals == 0) {
+            throw new IllegalArgumentException("RandomVCAGenerator: at least one call or internal symbol is needed to reach more than one location");
+        }
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("RandomVCAGenerator: the density must be in [0, 1]. Received: " + density);
+        }
+
+        VPDAlphabet<String> alphabet = getAlphabet(numCalls, numReturns, numInternals);
+        RandomStructure structure = new RandomStructure(alphabet, numLocations, threshold);
+        structure.createSpanningTree();
+        structure.fill(density);
+        structure.makeMinimal();
+        return structure.toVCA();
+    }
+
+    /**
+     * The VCA under construction, stored with arrays.
+     */
+    private final class RandomStructure {
+        private final VPDAlphabet<String> alphabet;
+        private final int numLocations;
+        private final int m;
+        /**
+         * The maximal counter value used to check the properties
+         */
+        private final int bound;
+        private final int[] signs;
+        private final boolean[] accepting;
+        /**
+         * transitions[(location * (m + 1) + counter value) * |Sigma| + symbol]
+         */
+        private final int[] transitions;
+        /**
+         * The transitions of the spanning tree must not be modified
+         */
+        private final boolean[] inTree;
+
+        RandomStructure(VPDAlphabet<String> alphabet, int numLocations, int m) {
+            this.alphabet = alphabet;
+            this.numLocations = numLocations;
+            this.m = m;
+            this.bound = 2 * m + 2;
+            this.signs = new int[alphabet.size()];
+            for (int i = 0 ; i < alphabet.size() ; i++) {
+                String symbol = alphabet.getSymbol(i);
+                signs[i] = alphabet.isCallSymbol(symbol) ? 1 : (alphabet.isReturnSymbol(symbol) ? -1 : 0);
+            }
+            this.accepting = new boolean[numLocations];
+            this.transitions = new int[numLocations * (m + 1) * alphabet.size()];
+            Arrays.fill(transitions, NO_TRANSITION);
+            this.inTree = new boolean[transitions.length];
+
+            for (int location = 0 ; location < numLocations ; location++) {
+                accepting[location] = random.nextBoolean();
+            }
+            accepting[random.nextInt(numLocations)] = true;
+        }
+
+        private int index(int location, int counterValue, int symbol) {
+            return (location * (m + 1) + Math.min(counterValue, m)) * alphabet.size() + symbol;
+        }
+
+        /**
+         * Can the symbol be read with the given counter value, without leaving [0, bound]?
+         */
+        private boolean isAdmissible(int counterValue, int symbol) {
+            int next = counterValue + signs[symbol];
+            return 0 <= next && next <= bound;
+        }
+
+        /**
+         * Makes every location reachable.
+         * 
+         * Each new location is the target of an undefined transition from an already reachable configuration.
+         */
+        void createSpanningTree() {
+            // The reachable configurations, stored as pairs (location, counter value)
+            List<int[]> reached = new ArrayList<>();
+            reached.add(new int[] {0, 0});
+            for (int newLocation = 1 ; newLocation < numLocations ; newLocation++) {
+                boolean added = false;
+                for (int attempt = 0 ; attempt < MAX_ATTEMPTS * numLocations && !added ; attempt++) {
+                    int[] configuration = reached.get(random.nextInt(reached.size()));
+                    int symbol = random.nextInt(alphabet.size());
+                    int idx = index(configuration[0], configuration[1], symbol);
+                    if (isAdmissible(configuration[1], symbol) && transitions[idx] == NO_TRANSITION) {
+                        transitions[idx] = newLocation;
+                        inTree[idx] = true;
+                        reached.add(new int[] {newLocation, configuration[1] + signs[symbol]});
+                        added = true;
+                    }
+                }
+                if (!added) {
+                    throw new IllegalStateException("RandomVCAGenerator: impossible to make the location " + newLocation + " reachable");
+                }
+            }
+        }
+
+        /**
+         * Defines every undefined transition with the given probability
+         * @param density The probability
+         */
+        void fill(double density) {
+            for (int location = 0 ; location < numLocations ; location++) {
+                for (int counterValue = 0 ; counterValue <= m ; counterValue++) {
+                    for (int symbol = 0 ; symbol < alphabet.size() ; symbol++) {
+                        int idx = index(location, counterValue, symbol);
+                        if (transitions[idx] == NO_TRANSITION && isAdmissible(counterValue, symbol) && random.nextDouble() < density) {
+                            transitions[idx] = random.nextInt(numLocations);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Redefines transitions of equivalent locations until every location is distinguishable.
+         */
+        void makeMinimal() {
+            for (int attempt = 0 ; attempt < MAX_ATTEMPTS ; attempt++) {
+                List<List<Integer>> classes = equivalentLocations();
+                if (classes.stream().allMatch(c -> c.size() == 1)) {
+                    return;
+                }
+                for (List<Integer> equivalenceClass : classes) {
+                    // We keep the first location and we change the others
+                    for (int i = 1 ; i < equivalenceClass.size() ; i++) {
+                        int location = equivalenceClass.get(i);
+                        if (random.nextInt(4) == 0) {
+                            accepting[location] = !accepting[location];
+                        }
+                        int counterValue = random.nextInt(m + 1);
+                        int symbol = random.nextInt(alphabet.size());
+                        int idx = index(location, counterValue, symbol);
+                        if (!inTree[idx] && isAdmissible(counterValue, symbol)) {
+                            transitions[idx] = random.nextInt(numLocations);
+                        }
+                    }
+                }
+            }
+            throw new IllegalStateException("RandomVCAGenerator: impossible to generate a VCA without equivalent locations. Try with a higher density");
+        }
+
+        /**
+         * Computes the classes of equivalent locations.
+         * 
+         * Two locations are equivalent if, for every counter value c up to the bound, the configurations (p, c) and (q, c) can not be distinguished
+         * by a word whose run stays between 0 and the bound.
+         * If two configurations are distinguished by such a word, they are also distinguished without the bound.
+         * 
+         * The configurations that can not reach an accepting configuration are merged with the implicit sink.
+         * The locations whose configurations all go to the sink are put in a class whose first element is NO_TRANSITION.
+         * That way, every location of the class is modified by makeMinimal().
+         * @return The classes of equivalent locations
+         */
+        private List<List<Integer>> equivalentLocations() {
+            // The configuration (location, c) has the id location * (bound + 1) + c
+            // The sink has the id numConfigurations. Missing transitions and transitions leaving [0, bound] go to the sink
+            int numConfigurations = numLocations * (bound + 1);
+            int sink = numConfigurations;
+            int[] successors = configurationSuccessors();
+            boolean[] live = liveConfigurations(successors);
+
+            // The dead configurations are in the class of the sink. The other ones are split by counter value and acceptance
+            int[] initialClasses = new int[numConfigurations + 1];
+            initialClasses[sink] = -1;
+            for (int configuration = 0 ; configuration < numConfigurations ; configuration++) {
+                int location = configuration / (bound + 1);
+                int counterValue = configuration % (bound + 1);
+                if (live[configuration]) {
+                    initialClasses[configuration] = 2 * counterValue + ((accepting[location] && counterValue == 0) ? 1 : 0);
+                }
+                else {
+                    initialClasses[configuration] = -1;
+                }
+            }
+            PartitionRefinement partition = new PartitionRefinement(numConfigurations + 1, alphabet.size(), successors, initialClasses);
+
+            // Two locations are equivalent iff their configurations are in the same blocks for every counter value
+            Map<List<Integer>, List<Integer>> classes = new HashMap<>();
+            int sinkClass = partition.getClassId(sink);
+            for (int location = 0 ; location < numLocations ; location++) {
+                Integer[] key = new Integer[bound + 1];
+                boolean dead = true;
+                for (int counterValue = 0 ; counterValue <= bound ; counterValue++) {
+                    key[counterValue] = partition.getClassId(location * (bound + 1) + counterValue);
+                    dead = dead && key[counterValue] == sinkClass;
+                }
+                List<Integer> equivalenceClass = classes.get(Arrays.asList(key));
+                if (equivalenceClass == null) {
+                    equivalenceClass = dead ? new ArrayList<>(Collections.singletonList(NO_TRANSITION)) : new ArrayList<>();
+                    classes.put(Arrays.asList(key), equivalenceClass);
+                }
+                equivalenceClass.add(location);
+            }
+            return new ArrayList<>(classes.values());
+        }
+
+        /**
+         * Computes the complete transition function over the configurations, with the sink as last state.
+         * @return An array such that array[configuration * |Sigma| + symbol] is the successor
+         */
+        private int[] configurationSuccessors() {
+            int numConfigurations = numLocations * (bound + 1);
+            int[] successors = new int[(numConfigurations + 1) * alphabet.size()];
+            Arrays.fill(successors, numConfigurations);
+            for (int configuration = 0 ; configuration < numConfigurations ; configuration++) {
+                int location = configuration / (bound + 1);
+                int counterValue = configuration % (bound + 1);
+                for (int symbol = 0 ; symbol < alphabet.size() ; symbol++) {
+                    if (isAdmissible(counterValue, symbol)) {
+                        int targetLocation = transitions[index(location, counterValue, symbol)];
+                        if (targetLocation != NO_TRANSITION) {
+                            successors[configuration * alphabet.size() + symbol] = targetLocation * (bound + 1) + counterValue + signs[symbol];
+                        }
+                    }
+                }
+            }
+            return successors;
+        }
+
+        /**
+         * Computes the configurations from which an accepting configuration can be reached, with a run staying between 0 and the bound.
+         * 
+         * The configurations are explored by a backward BFS from the accepting configurations.
+         * @param successors The transition function over the configurations, given by configurationSuccessors()
+         * @return An array indexed by the configuration ids (the sink is the last one)
+         */
+        private boolean[] liveConfigurations(int[] successors) {
+            int numStates = numLocations * (bound + 1) + 1;
+            int numSymbols = alphabet.size();
+
+            // The predecessors of t are predecessors[predecessorsStart[t] .. predecessorsStart[t + 1]]
+            int[] predecessorsStart = new int[numStates + 1];
+            for (int i = 0 ; i < successors.length ; i++) {
+                predecessorsStart[successors[i] + 1]++;
+            }
+            for (int state = 0 ; state < numStates ; state++) {
+                predecessorsStart[state + 1] += predecessorsStart[state];
+            }
+            int[] predecessors = new int[successors.length];
+            int[] next = Arrays.copyOf(predecessorsStart, numStates);
+            for (int i = 0 ; i < successors.length ; i++) {
+                predecessors[next[successors[i]]++] = i / numSymbols;
+            }
+
+            boolean[] live = new boolean[numStates];
+            int[] queue = new int[numStates];
+            int queueSize = 0;
+            for (int location = 0 ; location < numLocations ; location++) {
+                if (accepting[location]) {
+                    live[location * (bound + 1)] = true;
+                    queue[queueSize++] = location * (bound + 1);
+                }
+            }
+            for (int head = 0 ; head < queueSize ; head++) {
+                int state = queue[head];
+                for (int j = predecessorsStart[state] ; j < predecessorsStart[state + 1] ; j++) {
+                    int predecessor = predecessors[j];
+                    if (!live[predecessor]) {
+                        live[predecessor] = true;
+                        queue[queueSize++] = predecessor;
+                    }
+                }
+            }
+            return live;
+        }
+
+        DefaultVCA<String> toVCA() {
+            DefaultVCA<String> vca = new DefaultVCA<>(alphabet, m);
+            List<Location> locations = new ArrayList<>(numLocations);
+            locations.add(vca.addInitialLocation(accepting[0]));
+            for (int location = 1 ; location < numLocations ; location++) {
+                locations.add(vca.addLocation(accepting[location]));
+            }
+
+            for (int location = 0 ; location < numLocations ; location++) {
+                for (int counterValue = 0 ; counterValue <= m ; counterValue++) {
+                    for (int symbol = 0 ; symbol < alphabet.size() ; symbol++) {
+                        int target = transitions[index(location, counterValue, symbol)];
+                        if (target != NO_TRANSITION) {
+                            vca.setSuccessor(locations.get(location), counterValue, alphabet.getSymbol(symbol), locations.get(target));
+                        }
+                    }
+                }
+            }
+            return vca;
+        }
+    }
+}
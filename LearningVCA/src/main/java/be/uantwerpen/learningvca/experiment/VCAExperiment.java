@@ -17,10 +17,21 @@
  */
 package be.uantwerpen.learningvca.experiment;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
-import be.uantwerpen.learningvca.learner.LearnerVCA;
+import be.uantwerpen.learningvca.behaviorgraph.Description;
+import be.uantwerpen.learningvca.learner.VCALearner;
 import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle;
 import be.uantwerpen.learningvca.util.ComputeCounterValue;
 import be.uantwerpen.learningvca.vca.VCA;
@@ -28,13 +39,22 @@ import de.learnlib.api.logging.LearnLogger;
 import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.filter.statistic.Counter;
 import de.learnlib.util.statistics.SimpleProfiler;
+import net.automatalib.commons.util.Pair;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 
 /**
  * An experiment for a VCA.
  * 
+ * The learner can be a {@link be.uantwerpen.learningvca.learner.LearnerVCA} (stratified observation table) or a {@link be.uantwerpen.learningvca.learner.DiscriminationTreeLearnerVCA} (stratified discrimination trees).
+ * 
  * Since, the {@code Experiment} class declares everything as {@code private}, we need to redefine everything ourself.
+ * 
+ * Before its equivalence query, each hypothesis is checked against the answers the learner already knows (see {@link VCALearner#isConsistentWithObservations(VCA)}).
+ * The number of equivalence queries avoided this way is given by {@link #getSavedEquivalenceQueries()}.
+ * 
+ * The hypotheses can be checked in parallel (see {@link #setParallelHypotheses(ExecutorService, int)}).
+ * In this case, the equivalence oracle must be thread-safe (a {@link EquivalenceVCAOracle} is).
  * @param <I>
  * @author Gaëtan Staquet
  */
@@ -50,10 +70,14 @@ public class VCAExperiment<I extends Comparable<I>> {
     protected boolean log = false;
     protected boolean logModels = false;
     protected boolean profile = false;
+    protected ExecutorService executor = null;
+    protected int batchSize = 1;
     protected final Counter rounds = new Counter("learning rounds", "#");
+    protected final Counter savedEquivalenceQueries = new Counter("saved equivalence queries", "#");
+    protected boolean filterHypotheses = true;
     protected VCA<?, I> finalHypothesis = null;
     
-    public VCAExperiment(LearnerVCA<I> learner, EquivalenceVCAOracle<I> equivalenceOracle, VPDAlphabet<I> alphabet) {
+    public VCAExperiment(VCALearner<I> learner, EquivalenceVCAOracle<I> equivalenceOracle, VPDAlphabet<I> alphabet) {
         this.impl = new VCAExperimentImpl(learner, equivalenceOracle, alphabet);
     }
 
@@ -110,11 +134,68 @@ public class VCAExperiment<I extends Comparable<I>> {
         this.profile = profile;
     }
 
+    /**
+     * The filter is enabled by default.
+     * 
+     * A rejected hypothesis does not give a counterexample. So, the counterexample given to the learner can differ from the one found without the filter:
+     * it can come from another hypothesis, or from the limited behavior graph when every hypothesis is rejected.
+     * The learned VCA still accepts the target language.
+     * @param filterHypotheses
+     *         flag whether the hypotheses that are not consistent with the answers known by the learner should be rejected without an equivalence query
+     */
+    public void setFilterHypotheses(boolean filterHypotheses) {
+        this.filterHypotheses = filterHypotheses;
+    }
+
+    /**
+     * @param parallel
+     *         flag whether the hypotheses should be checked in parallel, using the common ForkJoin pool
+     */
+    public void setParallelHypotheses(boolean parallel) {
+        if (parallel) {
+            setParallelHypotheses(ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism());
+        }
+        else {
+            this.executor = null;
+            this.batchSize = 1;
+        }
+    }
+
+    /**
+     * Converts and checks the hypotheses by batches, in parallel.
+     * 
+     * The hypotheses of a batch are examined in the order given by the learner, and the first one without counterexample is returned.
+     * So, the result does not depend on the scheduling of the tasks and is the same as when the hypotheses are checked one by one.
+     * 
+     * The executor is not shut down by the experiment.
+     * @param executor The executor running the equivalence queries
+     * @param batchSize The number of hypotheses checked at once
+     */
+    public void setParallelHypotheses(ExecutorService executor, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("VCAExperiment: the batch size must be positive. Received: " + batchSize);
+        }
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
     @Nonnull
     public Counter getRounds() {
         return rounds;
     }
 
+    /**
+     * The number of hypotheses rejected without an equivalence query.
+     * 
+     * A rejected hypothesis disagrees with the learner on a word within the level limit, so its counterexample is seldom usable and the learner follows the same rounds as without the filter.
+     * The equivalence query over the limited behavior graph is then needed in both cases, and the counter is the difference between the numbers of equivalence queries.
+     * @return The number of equivalence queries saved by the filter
+     */
+    @Nonnull
+    public Counter getSavedEquivalenceQueries() {
+        return savedEquivalenceQueries;
+    }
+
     @Nonnull
     public VCA<?, I> getFinalHypothesis() {
         if (finalHypothesis == null) {
@@ -133,12 +214,27 @@ public class VCAExperiment<I extends Comparable<I>> {
         return finalHypothesis;
     }
 
+    /**
+     * The result of the check of a hypothesis
+     */
+    protected class HypothesisCheck {
+        public final VCA<?, I> hypothesis;
+        public final boolean rejectedByObservations;
+        public final DefaultQuery<I, Boolean> counterexample;
+
+        public HypothesisCheck(VCA<?, I> hypothesis, boolean rejectedByObservations, @Nullable DefaultQuery<I, Boolean> counterexample) {
+            this.hypothesis = hypothesis;
+            this.rejectedByObservations = rejectedByObservations;
+            this.counterexample = counterexample;
+        }
+    }
+
     protected class VCAExperimentImpl {
-        private final LearnerVCA<I> learner;
+        private final VCALearner<I> learner;
         private final EquivalenceVCAOracle<I> equivalenceVCAOracle;
         private final VPDAlphabet<I> alphabet;
 
-        public VCAExperimentImpl(LearnerVCA<I> learner, EquivalenceVCAOracle<I> equivalenceOracle, VPDAlphabet<I> alphabet) {
+        public VCAExperimentImpl(VCALearner<I> learner, EquivalenceVCAOracle<I> equivalenceOracle, VPDAlphabet<I> alphabet) {
             this.learner = learner;
             this.equivalenceVCAOracle = equivalenceOracle;
             this.alphabet = alphabet;
@@ -155,31 +251,50 @@ public class VCAExperiment<I extends Comparable<I>> {
             while (true) {
                 DefaultQuery<I, Boolean> counterexample = null;
 
-                VCA<?, I> hyp = null;
-                while ((hyp = learner.getHypothesisModel()) != null) {
-                    logModel(hyp);
-
-                    logPhase("Searching for counterexample");
-
-                    profileStart(COUNTEREXAMPLE_PROFILE_KEY);
-                    DefaultQuery<I, Boolean> ce = equivalenceVCAOracle.findCounterExample(hyp, alphabet);
-                    profileStop(COUNTEREXAMPLE_PROFILE_KEY);
-
-                    if (ce == null) {
-                        return hyp;
+                if (executor != null) {
+                    Pair<VCA<?, I>, DefaultQuery<I, Boolean>> result = checkHypothesesInParallel();
+                    if (result.getFirst() != null) {
+                        return result.getFirst();
                     }
-
-                    if (ComputeCounterValue.computeHeight(ce.getInput(), alphabet) > learner.getObservationTableLevelLimit()) {
-                        counterexample = ce;
+                    counterexample = result.getSecond();
+                }
+                else {
+                    VCA<?, I> hyp = null;
+                    while ((hyp = learner.getHypothesisModel()) != null) {
+                        logModel(hyp);
+
+                        if (filterHypotheses && !learner.isConsistentWithObservations(hyp)) {
+                            logPhase("Hypothesis rejected by the known observations");
+                            savedEquivalenceQueries.increment();
+                            continue;
+                        }
+
+                        logPhase("Searching for counterexample");
+
+                        profileStart(COUNTEREXAMPLE_PROFILE_KEY);
+                        DefaultQuery<I, Boolean> ce = equivalenceVCAOracle.findCounterExample(hyp, alphabet);
+                        profileStop(COUNTEREXAMPLE_PROFILE_KEY);
+
+                        if (ce == null) {
+                            return hyp;
+                        }
+
+                        if (ComputeCounterValue.computeHeight(ce.getInput(), alphabet) > learner.getLevelLimit()) {
+                            counterexample = ce;
+                        }
                     }
                 }
 
                 if (counterexample == null) {
                     // We didn't find a good counterexample nor an appropriate VCA
-                    VCA<?, I> bg = learner.getObservationTable().toVCA();
+                    VCA<?, I> bg = learner.getLimitedBehaviorGraphAsVCA();
                     logPhase("Using the limited behavior graph as a VCA");
                     logModel(bg);
                     counterexample = equivalenceVCAOracle.findCounterExample(bg, alphabet);
+                    if (counterexample == null) {
+                        // The language only uses counter values up to the level limit of the table
+                        return bg;
+                    }
                 }
 
                 logCounterexample(counterexample.getInput());
@@ -195,5 +310,97 @@ public class VCAExperiment<I extends Comparable<I>> {
                 assert refined;
             }
         }
+
+        /**
+         * Converts and checks the descriptions of the learner by batches, in parallel.
+         * 
+         * The results of a batch are read in the order of the learner, so the returned values are the same as when the hypotheses are checked one by one.
+         * Once a hypothesis without counterexample is found, the remaining checks of the batch are cancelled.
+         * As a ForkJoinPool does not interrupt a cancelled task, the checks of a batch share a cancellation flag.
+         * A running check stops at the next configuration explored by {@link be.uantwerpen.learningvca.vca.EmptinessCheck}, whatever the executor.
+         * @return The first hypothesis without counterexample (or null if there is none), and the last counterexample going above the level limit (or null if there is none)
+         */
+        private Pair<VCA<?, I>, DefaultQuery<I, Boolean>> checkHypothesesInParallel() {
+            DefaultQuery<I, Boolean> counterexample = null;
+            while (true) {
+                List<Description<I>> descriptions = new ArrayList<>(batchSize);
+                Description<I> description = null;
+                while (descriptions.size() < batchSize && (description = learner.getNextDescription()) != null) {
+                    descriptions.add(description);
+                }
+                if (descriptions.isEmpty()) {
+                    return Pair.of(null, counterexample);
+                }
+
+                logPhase("Searching for counterexamples for " + descriptions.size() + " hypotheses in parallel");
+
+                profileStart(COUNTEREXAMPLE_PROFILE_KEY);
+                List<Future<HypothesisCheck>> futures = new ArrayList<>(descriptions.size());
+                AtomicBoolean cancelled = new AtomicBoolean(false);
+                for (Description<I> candidate : descriptions) {
+                    futures.add(executor.submit(() -> checkHypothesis(candidate, cancelled::get)));
+                }
+
+                try {
+                    for (Future<HypothesisCheck> future : futures) {
+                        HypothesisCheck result = getResult(future);
+                        logModel(result.hypothesis);
+
+                        if (result.rejectedByObservations) {
+                            savedEquivalenceQueries.increment();
+                            continue;
+                        }
+
+                        DefaultQuery<I, Boolean> ce = result.counterexample;
+                        if (ce == null) {
+                            // The remaining hypotheses of the batch are not needed
+                            // The flag stops the emptiness checks that are still running
+                            cancelled.set(true);
+                            futures.forEach(f -> f.cancel(true));
+                            return Pair.of(result.hypothesis, counterexample);
+                        }
+
+                        if (ComputeCounterValue.computeHeight(ce.getInput(), alphabet) > learner.getLevelLimit()) {
+                            counterexample = ce;
+                        }
+                    }
+                }
+                finally {
+                    profileStop(COUNTEREXAMPLE_PROFILE_KEY);
+                }
+            }
+        }
+
+        /**
+         * Converts the description into a VCA and checks it, first against the answers known by the learner, then with an equivalence query.
+         * 
+         * The learner is only read, so multiple descriptions can be checked at once.
+         * @param description The description
+         * @param cancelled Tells whether the check is no longer needed
+         * @return The result of the check
+         */
+        private HypothesisCheck checkHypothesis(Description<I> description, BooleanSupplier cancelled) {
+            VCA<?, I> hyp = description.toVCA(alphabet);
+            if (filterHypotheses && !learner.isConsistentWithObservations(hyp)) {
+                return new HypothesisCheck(hyp, true, null);
+            }
+            return new HypothesisCheck(hyp, false, equivalenceVCAOracle.findCounterExample(hyp, alphabet, cancelled));
+        }
+
+        private <T> T getResult(Future<T> future) {
+            try {
+                return future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("VCAExperiment: interrupted while waiting for an equivalence query", e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("VCAExperiment: an equivalence query failed", e.getCause());
+            }
+        }
     }
 }
\ No newline at end of file
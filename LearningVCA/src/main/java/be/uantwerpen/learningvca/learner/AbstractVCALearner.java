@@ -0,0 +1,78 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.learner;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import be.uantwerpen.learningvca.behaviorgraph.Description;
+import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
+import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.VPDAlphabet;
+
+/**
+ * The common part of the learners for m-VCAs: the hypotheses are built from the periodic descriptions of the limited behavior graph.
+ * @param <I> The input alphabet type
+ * @author Gaëtan Staquet
+ */
+public abstract class AbstractVCALearner<I extends Comparable<I>> implements VCALearner<I> {
+    protected final VPDAlphabet<I> alphabet;
+    protected final MembershipOracle<I, Boolean> membershipOracle;
+    protected final PartialEquivalenceOracle<I> partialEquivalenceOracle;
+    private Iterator<Description<I>> descriptionIterator;
+
+    protected AbstractVCALearner(VPDAlphabet<I> alphabet, MembershipOracle<I, Boolean> membershipOracle,
+            PartialEquivalenceOracle<I> partialEquivalenceOracle) {
+        this.alphabet = alphabet;
+        this.membershipOracle = membershipOracle;
+        this.partialEquivalenceOracle = partialEquivalenceOracle;
+        this.descriptionIterator = Collections.emptyIterator();
+    }
+
+    /**
+     * Uses the periodic descriptions of the limited behavior graph as the next hypotheses.
+     * 
+     * The descriptions are only built when a hypothesis is requested.
+     * @param limitedBehaviorGraph The limited behavior graph
+     */
+    protected void setLimitedBehaviorGraph(LimitedBehaviorGraph<I> limitedBehaviorGraph) {
+        descriptionIterator = limitedBehaviorGraph.getPeriodicDescriptionIterator();
+    }
+
+    @Override
+    public VCA<?, I> getHypothesisModel() {
+        Description<I> description = getNextDescription();
+        if (description == null) {
+            return null;
+        }
+
+        VCA<?, I> hypothesis = description.toVCA(alphabet);
+
+        return hypothesis;
+    }
+
+    @Override
+    public Description<I> getNextDescription() {
+        if (!descriptionIterator.hasNext()) {
+            return null;
+        }
+        return descriptionIterator.next();
+    }
+}
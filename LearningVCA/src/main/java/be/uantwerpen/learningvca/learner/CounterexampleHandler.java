@@ -0,0 +1,40 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.learner;
+
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationTable;
+import de.learnlib.api.oracle.MembershipOracle;
+import net.automatalib.words.Word;
+
+/**
+ * Processes a counterexample by adding short prefixes and/or separators to a stratified observation table.
+ * 
+ * The table does not have to be closed and consistent afterwards.
+ * @see CounterexampleHandlers
+ * @author Gaëtan Staquet
+ */
+public interface CounterexampleHandler {
+    /**
+     * Adds the information given by the counterexample to the table.
+     * @param <I> The input alphabet type
+     * @param counterexample The counterexample
+     * @param table The stratified observation table
+     * @param oracle The membership oracle
+     */
+    <I extends Comparable<I>> void handleCounterexample(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle);
+}
@@ -0,0 +1,238 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.learner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationRow;
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationTable;
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * The available strategies to process a counterexample.
+ * 
+ * Except for {@link #ALL_PREFIXES_AND_SUFFIXES}, the prefixes of a counterexample are only added when its height exceeds the level limit of the table.
+ * In this case, the prefixes up to the first prefix reaching the height of the counterexample are added, as they are needed to increase the level limit.
+ * Otherwise, the separators are added in the level of the corresponding prefix, that is, the suffix {@code v} of the counterexample {@code uv} is added in the level given by the counter value of {@code u}.
+ * If a strategy can not extract a new separator from the counterexample, it falls back to {@link #ALL_PREFIXES_AND_SUFFIXES}.
+ * @author Gaëtan Staquet
+ */
+public enum CounterexampleHandlers implements CounterexampleHandler {
+    /**
+     * Every prefix is added as a short prefix and every suffix as a separator.
+     * 
+     * This is the strategy of the original algorithm.
+     */
+    ALL_PREFIXES_AND_SUFFIXES {
+        @Override
+        public <I extends Comparable<I>> void handleCounterexample(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle) {
+            VPDAlphabet<I> alphabet = table.getInputAlphabet();
+            List<Word<I>> prefixes = new ArrayList<>(counterexample.size() + 1);
+            List<Word<I>> suffixes = new ArrayList<>(counterexample.size() + 1);
+            List<Integer> suffixesLevels = new ArrayList<>(counterexample.size() + 1);
+            for (int i = 0 ; i <= counterexample.size() ; i++) {
+                Word<I> prefix = counterexample.subWord(0, i);
+                Word<I> suffix = counterexample.subWord(i);
+                prefixes.add(prefix);
+                suffixes.add(suffix);
+                suffixesLevels.add(ComputeCounterValue.computeCounterValue(suffix, alphabet));
+            }
+            table.addShortPrefixes(prefixes, oracle);
+            table.addSuffixes(suffixes, suffixesLevels, oracle);
+        }
+    },
+
+    /**
+     * Every suffix is added as a separator (Maler and Pnueli).
+     */
+    MALER_PNUELI {
+        @Override
+        public <I extends Comparable<I>> void handleCounterexample(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle) {
+            VPDAlphabet<I> alphabet = table.getInputAlphabet();
+            raiseLevelLimit(counterexample, table, oracle);
+            List<Word<I>> suffixes = new ArrayList<>(counterexample.size() + 1);
+            List<Integer> suffixesLevels = new ArrayList<>(counterexample.size() + 1);
+            for (int i = 0 ; i <= counterexample.size() ; i++) {
+                int level = ComputeCounterValue.computeCounterValue(counterexample.subWord(0, i), alphabet);
+                if (level == -1) {
+                    break;
+                }
+                suffixes.add(counterexample.subWord(i));
+                suffixesLevels.add(level);
+            }
+            int numberOfSuffixes = table.numberOfSuffixes();
+            table.addSuffixes(suffixes, suffixesLevels, oracle);
+            if (numberOfSuffixes == table.numberOfSuffixes()) {
+                ALL_PREFIXES_AND_SUFFIXES.handleCounterexample(counterexample, table, oracle);
+            }
+        }
+    },
+
+    /**
+     * The longest distinguishing suffix is added as a separator.
+     * 
+     * It is found by a linear search, for which the membership queries are asked in one batch.
+     */
+    LONGEST_SUFFIX {
+        @Override
+        public <I extends Comparable<I>> void handleCounterexample(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle) {
+            addDistinguishingSuffix(counterexample, table, oracle, false);
+        }
+    },
+
+    /**
+     * A distinguishing suffix is added as a separator.
+     * 
+     * It is found by a binary search (Rivest and Schapire), which needs a logarithmic number of membership queries.
+     */
+    RIVEST_SCHAPIRE {
+        @Override
+        public <I extends Comparable<I>> void handleCounterexample(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle) {
+            addDistinguishingSuffix(counterexample, table, oracle, true);
+        }
+    };
+
+    /**
+     * If the height of the counterexample exceeds the level limit of the table, adds its prefixes up to the first prefix reaching this height.
+     * @param <I> The input alphabet type
+     * @param counterexample The counterexample
+     * @param table The table
+     * @param oracle The membership oracle
+     * @return True iff short prefixes were added
+     */
+    private static <I extends Comparable<I>> boolean raiseLevelLimit(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle) {
+        VPDAlphabet<I> alphabet = table.getInputAlphabet();
+        int height = ComputeCounterValue.computeHeight(counterexample, alphabet);
+        if (height <= table.getLevelLimit()) {
+            return false;
+        }
+
+        List<Word<I>> prefixes = new ArrayList<>();
+        int counterValue = 0;
+        for (int i = 0 ; counterValue < height ; i++) {
+            prefixes.add(counterexample.subWord(0, i));
+            counterValue += ComputeCounterValue.signOf(counterexample.getSymbol(i), alphabet);
+        }
+        prefixes.add(counterexample.subWord(0, prefixes.size()));
+        table.addShortPrefixes(prefixes, oracle);
+        return true;
+    }
+
+    /**
+     * Gives the short prefix rows reached in the hypothesis of the table by each prefix of the word.
+     * @param <I> The input alphabet type
+     * @param word The word
+     * @param table The table
+     * @return The list of rows, or null if the word can not be read in the table
+     */
+    private static <I extends Comparable<I>> List<StratifiedObservationRow<I>> getAccessRows(Word<I> word, StratifiedObservationTable<I, Boolean> table) {
+        VPDAlphabet<I> alphabet = table.getInputAlphabet();
+        List<StratifiedObservationRow<I>> rows = new ArrayList<>(word.size() + 1);
+        StratifiedObservationRow<I> row = table.getRow(Word.epsilon());
+        if (row == null || !row.hasContents()) {
+            return null;
+        }
+        row = table.getRepresentativeRow(row);
+        rows.add(row);
+        for (I symbol : word) {
+            StratifiedObservationRow<I> successor = row.getSuccessor(alphabet.getSymbolIndex(symbol));
+            if (successor == null || !successor.hasContents()) {
+                return null;
+            }
+            row = table.getRepresentativeRow(successor);
+            if (row == null) {
+                return null;
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Adds one suffix of the counterexample as a separator.
+     * 
+     * Let {@code u_i} be the short prefix reached by the {@code i} first symbols of the counterexample {@code w}.
+     * The added suffix is a suffix {@code w[i+1..]} such that {@code u_i w[i] w[i+1..]} and {@code u_{i+1} w[i+1..]} are not both accepted or both rejected.
+     * So, it distinguishes the row of {@code u_i w[i]} from its representative {@code u_{i+1}}.
+     * @param <I> The input alphabet type
+     * @param counterexample The counterexample
+     * @param table The table
+     * @param oracle The membership oracle
+     * @param binarySearch Whether to use a binary search or a linear search
+     */
+    private static <I extends Comparable<I>> void addDistinguishingSuffix(Word<I> counterexample, StratifiedObservationTable<I, Boolean> table, MembershipOracle<I, Boolean> oracle, boolean binarySearch) {
+        if (raiseLevelLimit(counterexample, table, oracle)) {
+            return;
+        }
+
+        List<StratifiedObservationRow<I>> accessRows = getAccessRows(counterexample, table);
+        if (accessRows == null) {
+            ALL_PREFIXES_AND_SUFFIXES.handleCounterexample(counterexample, table, oracle);
+            return;
+        }
+
+        int length = counterexample.size();
+        int breakpoint = -1;
+        if (binarySearch) {
+            boolean low = oracle.answerQuery(accessRows.get(0).getLabel(), counterexample);
+            boolean high = oracle.answerQuery(accessRows.get(length).getLabel(), Word.epsilon());
+            if (low != high) {
+                int lowIndex = 0;
+                int highIndex = length;
+                while (highIndex - lowIndex > 1) {
+                    int middle = (lowIndex + highIndex) / 2;
+                    if (oracle.answerQuery(accessRows.get(middle).getLabel(), counterexample.subWord(middle)) == low) {
+                        lowIndex = middle;
+                    }
+                    else {
+                        highIndex = middle;
+                    }
+                }
+                breakpoint = lowIndex;
+            }
+        }
+        else {
+            List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(length + 1);
+            for (int i = 0 ; i <= length ; i++) {
+                queries.add(new DefaultQuery<>(accessRows.get(i).getLabel(), counterexample.subWord(i)));
+            }
+            oracle.processQueries(queries);
+            for (int i = 0 ; i < length ; i++) {
+                if (!queries.get(i).getOutput().equals(queries.get(i + 1).getOutput())) {
+                    breakpoint = i;
+                    break;
+                }
+            }
+        }
+
+        if (breakpoint != -1) {
+            int level = accessRows.get(breakpoint + 1).getLevel();
+            int numberOfSuffixes = table.numberOfSuffixes(level);
+            table.addSuffix(counterexample.subWord(breakpoint + 1), level, oracle);
+            if (numberOfSuffixes != table.numberOfSuffixes(level)) {
+                return;
+            }
+        }
+        ALL_PREFIXES_AND_SUFFIXES.handleCounterexample(counterexample, table, oracle);
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.learner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
+import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.Location;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * A learner for a m-VCA, based on stratified discrimination trees (in the spirit of the algorithm of Kearns and Vazirani).
+ * 
+ * Each level of the limited behavior graph has its own discrimination tree.
+ * The inner nodes are labeled by discriminators (suffixes) and the leaves are the states of the hypothesis, identified by their access sequences.
+ * The root of each tree is labeled by the empty word, so the states are split by acceptance first.
+ * 
+ * A counterexample of the partial equivalence oracle is decomposed with the technique of Rivest and Schapire.
+ * It thus adds exactly one discriminator and one state, instead of filling a row for each prefix and a column for each suffix.
+ * The transitions are sifted in batches, one membership query per tree node and transition.
+ * @param <I> The input alphabet type
+ * @author Gaëtan Staquet
+ */
+public class DiscriminationTreeLearnerVCA<I extends Comparable<I>> extends AbstractVCALearner<I> {
+    /**
+     * A node of a discrimination tree.
+     * 
+     * An inner node has a discriminator, a leaf has a state.
+     */
+    private static final class Node<I> {
+        private final Node<I> parent;
+        private Word<I> discriminator;
+        private Node<I> acceptingChild;
+        private Node<I> rejectingChild;
+        private HypothesisState<I> state;
+        private List<Transition<I>> incoming;
+
+        private Node(Node<I> parent) {
+            this.parent = parent;
+        }
+
+        private boolean isLeaf() {
+            return discriminator == null;
+        }
+
+        private Node<I> getChild(boolean outcome) {
+            return outcome ? acceptingChild : rejectingChild;
+        }
+
+        private Node<I> createLeaf(boolean outcome, HypothesisState<I> state) {
+            Node<I> leaf = new Node<>(this);
+            leaf.state = state;
+            leaf.incoming = new ArrayList<>();
+            state.leaf = leaf;
+            if (outcome) {
+                acceptingChild = leaf;
+            }
+            else {
+                rejectingChild = leaf;
+            }
+            return leaf;
+        }
+    }
+
+    /**
+     * A state of the hypothesis
+     */
+    private static final class HypothesisState<I> {
+        private final int id;
+        private final Word<I> accessSequence;
+        private final int level;
+        private final boolean accepting;
+        private final List<Transition<I>> transitions;
+        private Node<I> leaf;
+
+        private HypothesisState(int id, Word<I> accessSequence, int level, boolean accepting, int alphabetSize) {
+            this.id = id;
+            this.accessSequence = accessSequence;
+            this.level = level;
+            this.accepting = accepting;
+            this.transitions = new ArrayList<>(alphabetSize);
+            for (int i = 0 ; i < alphabetSize ; i++) {
+                transitions.add(null);
+            }
+        }
+    }
+
+    /**
+     * A transition of the hypothesis.
+     * 
+     * Its target is a node of the discrimination tree of the target level. It is a leaf once the transition is sifted.
+     */
+    private static final class Transition<I> {
+        private final HypothesisState<I> source;
+        private final I symbol;
+        private Node<I> target;
+
+        private Transition(HypothesisState<I> source, I symbol, Node<I> target) {
+            this.source = source;
+            this.symbol = symbol;
+            this.target = target;
+        }
+
+        private Word<I> getWord() {
+            return source.accessSequence.append(symbol);
+        }
+    }
+
+    // The root of the discrimination tree of each level
+    private final List<Node<I>> roots;
+    private final List<HypothesisState<I>> states;
+    // The transitions that must be sifted
+    private List<Transition<I>> unsiftedTransitions;
+    // t
+    private int levelLimit;
+
+    public DiscriminationTreeLearnerVCA(VPDAlphabet<I> alphabet, MembershipOracle<I, Boolean> membershipOracle,
+            PartialEquivalenceOracle<I> partialEquivalenceOracle) {
+        super(alphabet, membershipOracle, partialEquivalenceOracle);
+        this.roots = new ArrayList<>();
+        this.states = new ArrayList<>();
+        this.unsiftedTransitions = new ArrayList<>();
+        this.levelLimit = -1;
+    }
+
+    @Override
+    public void startLearning() {
+        increaseLevelLimit(0);
+        // The initial state is reached by sifting the empty word
+        boolean accepting = membershipOracle.answerQuery(Word.epsilon());
+        createState(roots.get(0), accepting, Word.epsilon(), 0);
+        setLimitedBehaviorGraph(learnBehaviorGraphUpTo());
+    }
+
+    @Override
+    public boolean refineHypothesis(DefaultQuery<I, Boolean> ceQuery) {
+        Word<I> counterexample = ceQuery.getInput();
+        int height = ComputeCounterValue.computeHeight(counterexample, alphabet);
+        boolean refined;
+        if (height > levelLimit) {
+            // The counterexample is not split: learnBehaviorGraphUpTo() learns the behavior graph exactly up to the new limit, with the partial equivalence oracle.
+            // As the height of the counterexample is at most the new limit, the counterexample is already handled and splitting it would only spend membership queries
+            increaseLevelLimit(height);
+            refined = true;
+        }
+        else {
+            refined = splitState(counterexample);
+        }
+        setLimitedBehaviorGraph(learnBehaviorGraphUpTo());
+        return refined;
+    }
+
+    @Override
+    public boolean isConsistentWithObservations(VCA<?, I> hypothesis) {
+        for (HypothesisState<I> state : states) {
+            if (!isConsistentWithPath(hypothesis, state.accessSequence, state.leaf)) {
+                return false;
+            }
+            for (Transition<I> transition : state.transitions) {
+                if (transition != null && !isConsistentWithPath(hypothesis, transition.getWord(), transition.target)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the answers given by the path from the node to the root of its discrimination tree
+     * @param hypothesis The hypothesis
+     * @param prefix The word sifted down to the node
+     * @param node The node
+     * @return True iff the hypothesis agrees with every discriminator on the path
+     */
+    private boolean isConsistentWithPath(VCA<?, I> hypothesis, Word<I> prefix, Node<I> node) {
+        for (Node<I> child = node ; child.parent != null ; child = child.parent) {
+            boolean outcome = child == child.parent.acceptingChild;
+            if (hypothesis.computeSuffixOutput(prefix, child.parent.discriminator) != outcome) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getLevelLimit() {
+        return levelLimit;
+    }
+
+    /**
+     * @return The number of states of the current limited behavior graph
+     */
+    public int numberOfStates() {
+        return states.size();
+    }
+
+    /**
+     * Learns the behavior graph up to the level limit
+     * @return The limited behavior graph
+     */
+    private LimitedBehaviorGraph<I> learnBehaviorGraphUpTo() {
+        while (true) {
+            siftTransitions();
+            LimitedBehaviorGraph<I> limitedBehaviorGraph = toLimitedBehaviorGraph();
+            DefaultQuery<I, Boolean> counterexample = partialEquivalenceOracle.findCounterExample(limitedBehaviorGraph, levelLimit);
+            if (counterexample == null || !splitState(counterexample.getInput())) {
+                return limitedBehaviorGraph;
+            }
+        }
+    }
+
+    /**
+     * Increases the level limit.
+     * 
+     * The transitions that were not allowed at the previous limit are created.
+     * @param newLimit The new limit
+     */
+    private void increaseLevelLimit(int newLimit) {
+        if (newLimit <= levelLimit) {
+            return;
+        }
+        while (roots.size() <= newLimit) {
+            Node<I> root = new Node<>(null);
+            root.discriminator = Word.epsilon();
+            roots.add(root);
+        }
+        levelLimit = newLimit;
+        for (HypothesisState<I> state : states) {
+            createTransitions(state);
+        }
+    }
+
+    /**
+     * Creates a state and its leaf in the discrimination tree.
+     * 
+     * The outgoing transitions of the state must then be sifted.
+     * @param parent The inner node that is the parent of the new leaf
+     * @param outcome The outcome of the discriminator of the parent for the access sequence
+     * @param accessSequence The access sequence
+     * @param level The level of the access sequence
+     * @return The leaf
+     */
+    private Node<I> createState(Node<I> parent, boolean outcome, Word<I> accessSequence, int level) {
+        // The first discriminator of each tree is the empty word
+        Node<I> node = parent;
+        boolean accepting = outcome;
+        while (node.parent != null) {
+            accepting = node == node.parent.acceptingChild;
+            node = node.parent;
+        }
+
+        HypothesisState<I> state = new HypothesisState<>(states.size(), accessSequence, level, accepting, alphabet.size());
+        states.add(state);
+        Node<I> leaf = parent.createLeaf(outcome, state);
+        createTransitions(state);
+        return leaf;
+    }
+
+    /**
+     * Creates the missing transitions of the state that are allowed by the level limit
+     * @param state The state
+     */
+    private void createTransitions(HypothesisState<I> state) {
+        for (int i = 0 ; i < alphabet.size() ; i++) {
+            I symbol = alphabet.getSymbol(i);
+            if (state.transitions.get(i) != null || (state.level == 0 && alphabet.isReturnSymbol(symbol)) || (state.level == levelLimit && alphabet.isCallSymbol(symbol))) {
+                continue;
+            }
+            int targetLevel = state.level + ComputeCounterValue.signOf(symbol, alphabet);
+            Transition<I> transition = new Transition<>(state, symbol, roots.get(targetLevel));
+            state.transitions.set(i, transition);
+            unsiftedTransitions.add(transition);
+        }
+    }
+
+    /**
+     * Sifts the transitions down to leaves.
+     * 
+     * The queries of each step are asked in one batch.
+     * If a transition reaches a missing child, a new state is created and its transitions are sifted as well.
+     */
+    private void siftTransitions() {
+        while (!unsiftedTransitions.isEmpty()) {
+            List<Transition<I>> transitions = unsiftedTransitions;
+            unsiftedTransitions = new ArrayList<>();
+
+            List<DefaultQuery<I, Boolean>> queries = new ArrayList<>(transitions.size());
+            for (Transition<I> transition : transitions) {
+                queries.add(new DefaultQuery<>(transition.getWord(), transition.target.discriminator));
+            }
+            membershipOracle.processQueries(queries);
+
+            for (int i = 0 ; i < transitions.size() ; i++) {
+                Transition<I> transition = transitions.get(i);
+                Node<I> node = transition.target;
+                boolean outcome = queries.get(i).getOutput();
+                Node<I> child = node.getChild(outcome);
+                if (child == null) {
+                    Word<I> word = transition.getWord();
+                    child = createState(node, outcome, word, transition.source.level + ComputeCounterValue.signOf(transition.symbol, alphabet));
+                }
+                transition.target = child;
+                if (child.isLeaf()) {
+                    child.incoming.add(transition);
+                }
+                else {
+                    unsiftedTransitions.add(transition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the states reached by the prefixes of the word.
+     * @param word The word
+     * @return The states, or null if the word leaves the hypothesis
+     */
+    private List<HypothesisState<I>> getReachedStates(Word<I> word) {
+        List<HypothesisState<I>> reached = new ArrayList<>(word.size() + 1);
+        HypothesisState<I> state = states.get(0);
+        reached.add(state);
+        for (I symbol : word) {
+            Transition<I> transition = state.transitions.get(alphabet.getSymbolIndex(symbol));
+            if (transition == null || !transition.target.isLeaf()) {
+                return null;
+            }
+            state = transition.target.state;
+            reached.add(state);
+        }
+        return reached;
+    }
+
+    /**
+     * Splits a state of the hypothesis according to the counterexample.
+     * 
+     * With {@code u_i} the access sequence of the state reached by the {@code i} first symbols of the counterexample {@code w}, a binary search finds {@code i} such that {@code u_i w[i] w[i+1..]} and {@code u_{i+1} w[i+1..]} are not both accepted or both rejected.
+     * The leaf of {@code u_{i+1}} is then split by the discriminator {@code w[i+1..]} and {@code u_i w[i]} becomes a new state.
+     * @param counterexample The counterexample
+     * @return True iff a state was split
+     */
+    private boolean splitState(Word<I> counterexample) {
+        List<HypothesisState<I>> reached = getReachedStates(counterexample);
+        if (reached == null) {
+            return false;
+        }
+
+        int length = counterexample.size();
+        boolean low = membershipOracle.answerQuery(counterexample);
+        boolean high = membershipOracle.answerQuery(reached.get(length).accessSequence);
+        if (low == high) {
+            return false;
+        }
+        int lowIndex = 0;
+        int highIndex = length;
+        while (highIndex - lowIndex > 1) {
+            int middle = (lowIndex + highIndex) / 2;
+            if (membershipOracle.answerQuery(reached.get(middle).accessSequence, counterexample.subWord(middle)) == low) {
+                lowIndex = middle;
+            }
+            else {
+                highIndex = middle;
+            }
+        }
+
+        HypothesisState<I> oldState = reached.get(highIndex);
+        Word<I> discriminator = counterexample.subWord(highIndex);
+        Word<I> newAccessSequence = reached.get(lowIndex).accessSequence.append(counterexample.getSymbol(lowIndex));
+
+        // The leaf becomes an inner node with the old state and the new state as children
+        Node<I> node = oldState.leaf;
+        List<Transition<I>> incoming = node.incoming;
+        node.state = null;
+        node.incoming = null;
+        node.discriminator = discriminator;
+        node.createLeaf(!low, oldState);
+        createState(node, low, newAccessSequence, oldState.level);
+
+        // The transitions going to the old leaf must be sifted one step further
+        unsiftedTransitions.addAll(incoming);
+        return true;
+    }
+
+    /**
+     * Constructs the limited behavior graph of the hypothesis
+     * @return The limited behavior graph
+     */
+    private LimitedBehaviorGraph<I> toLimitedBehaviorGraph() {
+        LimitedBehaviorGraph<I> limitedBehaviorGraph = new LimitedBehaviorGraph<>(alphabet, levelLimit);
+        for (HypothesisState<I> state : states) {
+            int q;
+            if (state.id == 0) {
+                q = limitedBehaviorGraph.addInitialState(state.accepting);
+            }
+            else {
+                q = limitedBehaviorGraph.addState(state.accepting);
+            }
+            limitedBehaviorGraph.setStateLevel(q, state.level);
+        }
+
+        for (HypothesisState<I> state : states) {
+            for (int i = 0 ; i < alphabet.size() ; i++) {
+                Transition<I> transition = state.transitions.get(i);
+                if (transition != null) {
+                    limitedBehaviorGraph.setTransition(state.id, i, transition.target.state.id);
+                }
+            }
+        }
+        return limitedBehaviorGraph;
+    }
+
+    @Override
+    public VCA<?, I> getLimitedBehaviorGraphAsVCA() {
+        DefaultVCA<I> vca = new DefaultVCA<>(alphabet, levelLimit);
+        Location[] locations = new Location[states.size()];
+        for (HypothesisState<I> state : states) {
+            if (state.id == 0) {
+                locations[state.id] = vca.addInitialLocation(state.accepting);
+            }
+            else {
+                locations[state.id] = vca.addLocation(state.accepting);
+            }
+        }
+
+        for (HypothesisState<I> state : states) {
+            for (Transition<I> transition : state.transitions) {
+                if (transition != null) {
+                    vca.setSuccessor(locations[state.id], state.level, transition.symbol, locations[transition.target.state.id]);
+                }
+            }
+        }
+        return vca;
+    }
+}
@@ -19,100 +19,70 @@ package be.uantwerpen.learningvca.learner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
-import be.uantwerpen.learningvca.behaviorgraph.Description;
 import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
+import be.uantwerpen.learningvca.observationtable.StratifiedObservationRow;
 import be.uantwerpen.learningvca.observationtable.StratifiedObservationTable;
 import be.uantwerpen.learningvca.observationtable.StratifiedObservationTableBoolean;
 import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
-import be.uantwerpen.learningvca.util.ComputeCounterValue;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.oracle.MembershipOracle;
 import de.learnlib.api.query.DefaultQuery;
 import de.learnlib.datastructure.observationtable.Inconsistency;
 import de.learnlib.datastructure.observationtable.OTLearner;
 import de.learnlib.datastructure.observationtable.Row;
+import net.automatalib.commons.util.Pair;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 
 /**
- * The learner for a m-VCA
+ * The learner for a m-VCA, based on a stratified observation table
  * 
  * @param <I>
  * @author Gaëtan Staquet
  */
-public class LearnerVCA<I extends Comparable<I>> implements OTLearner<VCA<?, I>, I, Boolean> {
-    private final VPDAlphabet<I> alphabet;
-    private final MembershipOracle<I, Boolean> membershipOracle;
-    private final PartialEquivalenceOracle<I> partialEquivalenceOracle;
-    private List<Description<I>> descriptions;
-    private Iterator<Description<I>> descriptionIterator;
+public class LearnerVCA<I extends Comparable<I>> extends AbstractVCALearner<I> implements OTLearner<VCA<?, I>, I, Boolean> {
     private final StratifiedObservationTable<I, Boolean> stratifiedObservationTable;
+    private final CounterexampleHandler counterexampleHandler;
 
     public LearnerVCA(VPDAlphabet<I> alphabet, MembershipOracle<I, Boolean> membershipOracle,
             PartialEquivalenceOracle<I> partialEquivalenceOracle) {
-        this.alphabet = alphabet;
-        this.membershipOracle = membershipOracle;
-        this.partialEquivalenceOracle = partialEquivalenceOracle;
-        this.descriptions = new LinkedList<>();
+        this(alphabet, membershipOracle, partialEquivalenceOracle, CounterexampleHandlers.ALL_PREFIXES_AND_SUFFIXES);
+    }
+
+    /**
+     * @param alphabet The pushdown alphabet
+     * @param membershipOracle The membership oracle
+     * @param partialEquivalenceOracle The partial equivalence oracle
+     * @param counterexampleHandler How the counterexamples are added to the observation table
+     */
+    public LearnerVCA(VPDAlphabet<I> alphabet, MembershipOracle<I, Boolean> membershipOracle,
+            PartialEquivalenceOracle<I> partialEquivalenceOracle, CounterexampleHandler counterexampleHandler) {
+        super(alphabet, membershipOracle, partialEquivalenceOracle);
+        this.counterexampleHandler = counterexampleHandler;
         this.stratifiedObservationTable = new StratifiedObservationTableBoolean<>(alphabet);
     }
 
     @Override
     public void startLearning() {
         this.stratifiedObservationTable.initialize(Arrays.asList(Word.epsilon()), Arrays.asList(Word.epsilon()), membershipOracle);
-        LimitedBehaviorGraph<I> behaviorGraphUpInitial = learnBehaviorGraphUpTo(stratifiedObservationTable.getLevelLimit());
-        descriptions = behaviorGraphUpInitial.getPeriodicDescriptions();
-        descriptionIterator = descriptions.iterator();
+        setLimitedBehaviorGraph(learnBehaviorGraphUpTo(stratifiedObservationTable.getLevelLimit()));
     }
 
     @Override
     public boolean refineHypothesis(DefaultQuery<I, Boolean> ceQuery) {
-        // Let w be the counter example
-        // For every decomposition w = uv, we add u as representative and v as separator
-        Word<I> counterexample = ceQuery.getInput();
-        List<Word<I>> prefixes = new ArrayList<>(counterexample.size());
-        List<Word<I>> suffixes = new ArrayList<>(counterexample.size());
-        List<Integer> suffixesLevels = new ArrayList<>(counterexample.size());
-        for (int i = 0; i <= counterexample.size(); i++) {
-            Word<I> prefix = counterexample.subWord(0, i);
-            Word<I> suffix = counterexample.subWord(i);
-            prefixes.add(prefix);
-            suffixes.add(suffix);
-            suffixesLevels.add(ComputeCounterValue.computeCounterValue(suffix, alphabet));
-        }
-        stratifiedObservationTable.addShortPrefixes(prefixes, membershipOracle);
-        stratifiedObservationTable.addSuffixes(suffixes, suffixesLevels, membershipOracle);
+        int numberOfRows = stratifiedObservationTable.numberOfRows();
+        int numberOfSuffixes = stratifiedObservationTable.numberOfSuffixes();
+        counterexampleHandler.handleCounterexample(ceQuery.getInput(), stratifiedObservationTable, membershipOracle);
+        boolean refined = numberOfRows != stratifiedObservationTable.numberOfRows() || numberOfSuffixes != stratifiedObservationTable.numberOfSuffixes();
 
         // Learning the behavior graph up to t
-        LimitedBehaviorGraph<I> behaviorGraphUpToT = learnBehaviorGraphUpTo(stratifiedObservationTable.getLevelLimit());
-        descriptions = behaviorGraphUpToT.getPeriodicDescriptions();
-        descriptionIterator = descriptions.iterator();
-        return prefixes.size() != 0 || suffixes.size() != 0;
-    }
-
-    /**
-     * Gets the next hypothesis model.
-     * 
-     * That is, for every possible description of the behavior graph (learned up to
-     * a threshold t), an hypothesis is built. Once every description has been used,
-     * the function returns null.
-     * 
-     * @return A VCA or null if there is no next hypothesis model
-     */
-    @Override
-    public VCA<?, I> getHypothesisModel() {
-        if (descriptions.size() == 0 || !descriptionIterator.hasNext()) {
-            return null;
-        }
-
-        Description<I> description = descriptionIterator.next();
-        VCA<?, I> hypothesis = description.toVCA(alphabet);
-
-        return hypothesis;
+        setLimitedBehaviorGraph(learnBehaviorGraphUpTo(stratifiedObservationTable.getLevelLimit()));
+        return refined;
     }
 
     /**
@@ -127,38 +97,42 @@ public class LearnerVCA<I extends Comparable<I>> implements OTLearner<VCA<?, I>,
         do {
             // We process the counterexample
             if (counterexample != null) {
-                Word<I> counterexampleWord = counterexample.getInput();
-                List<Word<I>> prefixes = new ArrayList<>(counterexampleWord.size());
-                List<Word<I>> suffixes = new ArrayList<>(counterexampleWord.size());
-                List<Integer> suffixesLevels = new ArrayList<>(counterexampleWord.size());
-                for (int i = 0 ; i <= counterexampleWord.size() ; i++) {
-                    Word<I> prefix = counterexampleWord.subWord(0, i);
-                    Word<I> suffix = counterexampleWord.subWord(i);
-                    prefixes.add(prefix);
-                    suffixes.add(suffix);
-                    suffixesLevels.add(ComputeCounterValue.computeCounterValue(suffix, alphabet));
-                }
-                stratifiedObservationTable.addShortPrefixes(prefixes, membershipOracle);
-                stratifiedObservationTable.addSuffixes(suffixes, suffixesLevels, membershipOracle);
+                counterexampleHandler.handleCounterexample(counterexample.getInput(), stratifiedObservationTable, membershipOracle);
             }
 
             // We make the table closed and consistent
             boolean closedAndConsistent = true;
             do {
                 closedAndConsistent = true;
-                Row<I> unclosedRow = null;
-                while ((unclosedRow = stratifiedObservationTable.findUnclosedRow()) != null) {
-                    // unclosedRow is directly the long prefix to add
-                    stratifiedObservationTable.addShortPrefixes(Arrays.asList(unclosedRow.getLabel()), membershipOracle);
+                List<StratifiedObservationRow<I>> unclosedRows = null;
+                while (!(unclosedRows = stratifiedObservationTable.findUnclosedRows()).isEmpty()) {
+                    // The unclosed rows are directly the long prefixes to add
+                    List<Word<I>> newShortPrefixes = new ArrayList<>(unclosedRows.size());
+                    for (Row<I> unclosedRow : unclosedRows) {
+                        newShortPrefixes.add(unclosedRow.getLabel());
+                    }
+                    stratifiedObservationTable.addShortPrefixes(newShortPrefixes, membershipOracle);
                     closedAndConsistent = false;
                 }
 
-                Inconsistency<I> inconsistency = null;
-                while ((inconsistency = stratifiedObservationTable.findInconsistency()) != null) {
-                    Word<I> w = stratifiedObservationTable.findDistinguishingSuffix(inconsistency);
-                    Word<I> aw = w.prepend(inconsistency.getSymbol());
-                    int counterValue = ComputeCounterValue.computeCounterValue(inconsistency.getFirstRow().getLabel(), alphabet);
-                    stratifiedObservationTable.addSuffix(aw, counterValue, membershipOracle);
+                List<Inconsistency<I>> inconsistencies = null;
+                while (!(inconsistencies = stratifiedObservationTable.findInconsistencies()).isEmpty()) {
+                    // Several inconsistencies may be solved by the same suffix, so we add each suffix once
+                    Set<Pair<Word<I>, Integer>> newSuffixes = new LinkedHashSet<>();
+                    for (Inconsistency<I> inconsistency : inconsistencies) {
+                        Word<I> w = stratifiedObservationTable.findDistinguishingSuffix(inconsistency);
+                        Word<I> aw = w.prepend(inconsistency.getSymbol());
+                        int counterValue = stratifiedObservationTable.getRow(inconsistency.getFirstRow().getRowId()).getLevel();
+                        newSuffixes.add(Pair.of(aw, counterValue));
+                    }
+
+                    List<Word<I>> suffixes = new ArrayList<>(newSuffixes.size());
+                    List<Integer> suffixesLevels = new ArrayList<>(newSuffixes.size());
+                    for (Pair<Word<I>, Integer> suffix : newSuffixes) {
+                        suffixes.add(suffix.getFirst());
+                        suffixesLevels.add(suffix.getSecond());
+                    }
+                    stratifiedObservationTable.addSuffixes(suffixes, suffixesLevels, membershipOracle);
                     closedAndConsistent = false;
                 }
             } while (!closedAndConsistent);
@@ -183,4 +157,33 @@ public class LearnerVCA<I extends Comparable<I>> implements OTLearner<VCA<?, I>,
     public int getObservationTableLevelLimit() {
         return stratifiedObservationTable.getLevelLimit();
     }
+
+    @Override
+    public boolean isConsistentWithObservations(VCA<?, I> hypothesis) {
+        for (int level = 0 ; level <= stratifiedObservationTable.getLevelLimit() ; level++) {
+            List<Word<I>> suffixes = stratifiedObservationTable.getSuffixes(level);
+            for (StratifiedObservationRow<I> row : stratifiedObservationTable.getAllRows(level)) {
+                if (!row.hasContents()) {
+                    continue;
+                }
+                List<Boolean> contents = stratifiedObservationTable.rowContents(row);
+                for (int i = 0 ; i < suffixes.size() ; i++) {
+                    if (!Objects.equals(hypothesis.computeSuffixOutput(row.getLabel(), suffixes.get(i)), contents.get(i))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getLevelLimit() {
+        return getObservationTableLevelLimit();
+    }
+
+    @Override
+    public VCA<?, I> getLimitedBehaviorGraphAsVCA() {
+        return stratifiedObservationTable.toVCA();
+    }
 }
\ No newline at end of file
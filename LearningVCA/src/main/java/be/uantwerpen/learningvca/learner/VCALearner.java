@@ -0,0 +1,72 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.learner;
+
+import javax.annotation.Nullable;
+
+import be.uantwerpen.learningvca.behaviorgraph.Description;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.api.algorithm.LearningAlgorithm;
+
+/**
+ * A learner for m-VCAs.
+ * 
+ * The learner learns the behavior graph of the target up to a level limit t, and proposes a VCA for each periodic description of this limited behavior graph.
+ * @param <I> The input alphabet type
+ * @author Gaëtan Staquet
+ */
+public interface VCALearner<I extends Comparable<I>> extends LearningAlgorithm<VCA<?, I>, I, Boolean> {
+    /**
+     * Gets the next hypothesis model.
+     * 
+     * Once every description of the limited behavior graph has been used, the function returns null.
+     * @return A VCA or null if there is no next hypothesis model
+     */
+    @Override
+    VCA<?, I> getHypothesisModel();
+
+    /**
+     * Gets the next periodic description of the limited behavior graph, without converting it into a VCA.
+     * 
+     * This consumes the same descriptions as {@link #getHypothesisModel()}.
+     * @return The description, or null if every description of the limited behavior graph has been used
+     */
+    @Nullable
+    Description<I> getNextDescription();
+
+    /**
+     * Checks whether the hypothesis gives the same answers as the ones the learner already knows (for instance, the cells of the observation table).
+     * 
+     * No membership query is asked.
+     * If the hypothesis is not consistent, it is not equivalent to the target and the equivalence query can be avoided.
+     * @param hypothesis The hypothesis
+     * @return True iff the hypothesis agrees with every known answer
+     */
+    boolean isConsistentWithObservations(VCA<?, I> hypothesis);
+
+    /**
+     * @return The current level limit (t)
+     */
+    int getLevelLimit();
+
+    /**
+     * Constructs a t-VCA from the behavior graph learnt up to the level limit.
+     * @return The t-VCA
+     */
+    VCA<?, I> getLimitedBehaviorGraphAsVCA();
+}
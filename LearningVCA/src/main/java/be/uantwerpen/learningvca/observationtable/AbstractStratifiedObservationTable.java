@@ -19,13 +19,17 @@ package be.uantwerpen.learningvca.observationtable;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,16 +54,28 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
     // A prefix (or representative) is short if it is in the upper half of the observation table.
     // That is, it is short if it one of the row used for the creation of the automaton
     protected final List<List<StratifiedObservationRow<I>>> shortPrefixRows;
-    protected final List<StratifiedObservationRow<I>> allLongPrefixRows;
+    // The long prefix rows are stored in insertion-ordered sets, as they are removed when they become short
+    protected final Set<StratifiedObservationRow<I>> allLongPrefixRows;
+    protected final List<Set<StratifiedObservationRow<I>>> longPrefixRows;
     protected final List<StratifiedObservationRow<I>> allPrefixRows;
 
-    protected final Map<Word<I>, StratifiedObservationRow<I>> rowMap;
+    // The rows, indexed by their prefix
+    private final WordTrie<I, StratifiedObservationRow<I>> rowMap;
 
     // A suffix is a separator
     protected final List<List<Word<I>>> suffixes;
+    // For each level, the position of each suffix in the list of suffixes
+    private final List<WordTrie<I, Integer>> suffixIndexes;
 
     protected final List<List<D>> allRowContents;
     protected final Map<List<D>, Integer> rowContentsIdsMap;
+
+    // For each level, the first short prefix row using each row content id.
+    // It is null when it must be recomputed (that is, after a modification of a short prefix row)
+    private List<Map<Integer, StratifiedObservationRow<I>>> representativeRows;
+
+    // For each row content id, the number of rows using it
+    private int[] numberOfMembers;
     
     // t
     protected int maxLevel;
@@ -74,18 +90,24 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
      */
     public AbstractStratifiedObservationTable(VPDAlphabet<I> alphabet) {
         this.alphabet = alphabet;
-        this.shortPrefixRows = new LinkedList<>();
-        this.allLongPrefixRows = new LinkedList<>();
-        this.allPrefixRows = new LinkedList<>();
+        this.shortPrefixRows = new ArrayList<>();
+        this.allLongPrefixRows = new LinkedHashSet<>();
+        this.longPrefixRows = new ArrayList<>();
+        this.allPrefixRows = new ArrayList<>();
 
-        this.rowMap = new HashMap<>();
+        this.rowMap = new WordTrie<>();
 
-        this.suffixes = new LinkedList<>();
+        this.suffixes = new ArrayList<>();
+        this.suffixIndexes = new ArrayList<>();
 
-        this.allRowContents = new LinkedList<>();
+        this.allRowContents = new ArrayList<>();
 
         this.rowContentsIdsMap = new HashMap<>();
 
+        this.representativeRows = null;
+
+        this.numberOfMembers = new int[16];
+
         this.maxLevel = -1;
 
         this.initialConsistencyCheckRequired = false;
@@ -110,7 +132,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
     @Override
     public Collection<Row<I>> getShortPrefixRows() {
-        List<Row<I>> list = new LinkedList<>();
+        List<Row<I>> list = new ArrayList<>();
         for (List<StratifiedObservationRow<I>> l : shortPrefixRows) {
             list.addAll(l);
         }
@@ -131,10 +153,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
     @Override
     public Collection<StratifiedObservationRow<I>> getLongPrefixRows(int level) {
-        return allLongPrefixRows.stream().
-            filter(row -> ComputeCounterValue.computeCounterValue(row.getLabel(), getInputAlphabet()) == level).
-            collect(Collectors.toList())
-        ;
+        return longPrefixRows.get(level);
     }
 
     @Override
@@ -164,7 +183,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
     @Override
     public List<Word<I>> getSuffixes() {
-        List<Word<I>> list = new LinkedList<>();
+        List<Word<I>> list = new ArrayList<>();
         for (List<Word<I>> l : suffixes) {
             list.addAll(l);
         }
@@ -188,9 +207,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         increaseLevelLimit(0);
         // So, the suffixes are all in S_0
         for (Word<I> suffix : initialSuffixes) {
-            if (!this.suffixes.get(0).contains(suffix)) {
-                this.suffixes.get(0).add(suffix);
-            }
+            addSuffixToLevel(suffix, 0);
         }
 
         int numSuffixes = initialSuffixes.size();
@@ -216,7 +233,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         // We process the queries for short prefixes
         // That is, we set the contents to each short prefix row
         for (StratifiedObservationRow<I> shortPrefixRow : shortPrefixRows.get(0)) {
-            List<D> rowContents = new ArrayList<>(numSuffixes);
+            List<D> rowContents = createRowContents(numSuffixes);
             fetchQueriesResults(queryIt, rowContents, numSuffixes);
             if (!processContents(shortPrefixRow, rowContents)) {
                 initialConsistencyCheckRequired = true;
@@ -236,7 +253,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
                     // We ignore this successor if it is invalid or a short prefix
                     continue;
                 }
-                List<D> rowContents = new ArrayList<>(numSuffixes);
+                List<D> rowContents = createRowContents(numSuffixes);
                 fetchQueriesResults(queryIt, rowContents, numSuffixes);
                 if (processContents(successorRow, rowContents)) {
                     unclosed.add(new ArrayList<>());
@@ -279,6 +296,18 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         }
     }
 
+    /**
+     * Creates an empty list to store the contents of a row.
+     * 
+     * Implementations can override this to use a more compact representation.
+     * The returned list must support appending elements.
+     * @param numberOfCells The expected number of cells
+     * @return An empty list
+     */
+    protected List<D> createRowContents(int numberOfCells) {
+        return new ArrayList<>(numberOfCells);
+    }
+
     /**
      * Associates the contents to the the row.
      * 
@@ -288,17 +317,45 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
      * @return True iff the row contents were added in allRowContents
      */
     protected boolean processContents(StratifiedObservationRow<I> row, List<D> rowContents) {
-        boolean added = false;
+        int numberOfDistinctRows = numberOfDistinctRows();
+        assignContentId(row, internRowContents(rowContents));
+        return numberOfDistinctRows != numberOfDistinctRows();
+    }
+
+    /**
+     * Gets the id of the row contents.
+     * 
+     * If the row contents is not yet registered, it gets registered.
+     * @param rowContents The contents
+     * @return The row content id
+     */
+    private int internRowContents(List<D> rowContents) {
         Integer contentID = rowContentsIdsMap.get(rowContents);
-        // If the row is not yet registered, we register it
         if (contentID == null) {
-            added = true;
             contentID = numberOfDistinctRows();
             rowContentsIdsMap.put(rowContents, contentID);
             allRowContents.add(rowContents);
         }
-        row.setRowContentId(contentID);
-        return added;
+        return contentID;
+    }
+
+    /**
+     * Sets the row content id of the row and updates the number of members of the classes.
+     * @param row The row
+     * @param contentId The row content id
+     */
+    private void assignContentId(StratifiedObservationRow<I> row, int contentId) {
+        if (row.hasContents()) {
+            numberOfMembers[row.getRowContentId()]--;
+        }
+        if (contentId >= numberOfMembers.length) {
+            numberOfMembers = Arrays.copyOf(numberOfMembers, Math.max(2 * numberOfMembers.length, contentId + 1));
+        }
+        numberOfMembers[contentId]++;
+        row.setRowContentId(contentId);
+        if (row.isShortPrefixRow()) {
+            representativeRows = null;
+        }
     }
 
     /**
@@ -307,15 +364,17 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
      * @return A row for the short prefix
      */
     protected StratifiedObservationRow<I> createShortPrefixRow(Word<I> shortPrefix) {
-        StratifiedObservationRow<I> row = new StratifiedObservationRow<>(shortPrefix, allPrefixRows.size(), alphabet.size());
         int counterValue = ComputeCounterValue.computeCounterValue(shortPrefix, alphabet, maxLevel);
 
         if (counterValue == -1 || counterValue > maxLevel) {
             return null;
         }
 
+        StratifiedObservationRow<I> row = new StratifiedObservationRow<>(shortPrefix, counterValue, allPrefixRows.size(), alphabet.size());
+
         rowMap.put(shortPrefix, row);
         shortPrefixRows.get(counterValue).add(row);
+        representativeRows = null;
 
         allPrefixRows.add(row);
         return row;
@@ -337,7 +396,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
             if ((i == 0 && alphabet.isReturnSymbol(symbol)) || (i == maxLevel && alphabet.isCallSymbol(symbol))) {
                 continue;
             }
-            int counterValue = ComputeCounterValue.computeCounterValue(shortPrefix, alphabet);
+            int counterValue = shortPrefixRow.getLevel();
             Word<I> longPrefix = shortPrefix.append(symbol);
 
             StratifiedObservationRow<I> successorRow = getRow(longPrefix);
@@ -352,6 +411,10 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
             else if (successorRow.isShortPrefixRow()) {
                 continue;
             }
+            else if (!successorRow.hasContents()) {
+                // The row was created while checking the closedness of the table
+                createQueries(queries, longPrefix, suffixes.get(counterValue + ComputeCounterValue.signOf(symbol, alphabet)));
+            }
 
             shortPrefixRow.setSuccessor(i, successorRow);
             if (successorRow != null) {
@@ -367,14 +430,15 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
      * @return A row for the long prefix or null if the long prefix is invalid
      */
     private StratifiedObservationRow<I> createLongPrefixRow(Word<I> longPrefix) {
-        StratifiedObservationRow<I> row = new StratifiedObservationRow<>(longPrefix, allPrefixRows.size());
         int counterValue = ComputeCounterValue.computeCounterValue(longPrefix, alphabet, maxLevel);
         if (counterValue == -1 || counterValue > maxLevel) {
             return null;
         }
+        StratifiedObservationRow<I> row = new StratifiedObservationRow<>(longPrefix, counterValue, allPrefixRows.size());
         rowMap.put(longPrefix, row);
         allPrefixRows.add(row);
         allLongPrefixRows.add(row);
+        longPrefixRows.get(counterValue).add(row);
         return row;
     }
 
@@ -396,196 +460,121 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
         List<List<Word<I>>> newSuffixesList = new ArrayList<>(maxLevel + 1);
         // We keep only the really new suffixes and we store them by level
+        List<WordTrie<I, Boolean>> candidates = new ArrayList<>(maxLevel + 1);
         for (int level = 0 ; level <= maxLevel ; level++) {
-            List<Word<I>> l = new ArrayList<>(newSuffixes.size());
-            for (int j = 0 ; j < newSuffixes.size() ; j++) {
-                if (newSuffixesLevels.get(j) == level && !suffixes.get(level).contains(newSuffixes.get(j))) {
-                    l.add(newSuffixes.get(j));
-                }
+            newSuffixesList.add(new ArrayList<>());
+            candidates.add(new WordTrie<>());
+        }
+        for (int j = 0 ; j < newSuffixes.size() ; j++) {
+            int level = newSuffixesLevels.get(j);
+            Word<I> suffix = newSuffixes.get(j);
+            if (0 <= level && level <= maxLevel && !suffixIndexes.get(level).containsKey(suffix) && candidates.get(level).putIfAbsent(suffix, true) == null) {
+                newSuffixesList.get(level).add(suffix);
             }
-            newSuffixesList.add(l);
         }
 
         // We create the queries needed to fill every row
+        // Only the levels with new suffixes are modified
         List<DefaultQuery<I, D>> queries = new ArrayList<>();
-
         for (int level = 0 ; level <= maxLevel ; level++) {
-            for (StratifiedObservationRow<I> shortPrefixRow : shortPrefixRows.get(level)) {
-                createQueries(queries, shortPrefixRow.getLabel(), newSuffixesList.get(level));
+            if (newSuffixesList.get(level).isEmpty()) {
+                continue;
+            }
+            for (StratifiedObservationRow<I> row : getRowsWithContents(level)) {
+                createQueries(queries, row.getLabel(), newSuffixesList.get(level));
             }
-        }
-
-        for (StratifiedObservationRow<I> longPrefixRow : allLongPrefixRows) {
-            Word<I> longPrefix = longPrefixRow.getLabel();
-            createQueries(queries, longPrefix, newSuffixesList.get(ComputeCounterValue.computeCounterValue(longPrefix, alphabet)));
         }
 
         oracle.processQueries(queries);
 
         Iterator<DefaultQuery<I, D>> queryIt = queries.iterator();
-        // We need to know if we have already seen a row content in an other level
-        // Indeed, if two rows on different levels use the same row contents, it's possible that adding a new suffix makes them use different row contents
-        Map<List<D>, List<Integer>> rowContentsToLevels = new HashMap<>();
+        List<List<Row<I>>> unclosed = new ArrayList<>();
 
-        // We start by updating the short prefixes
         for (int level = 0 ; level <= maxLevel ; level++) {
-            for (StratifiedObservationRow<I> shortPrefixRow : shortPrefixRows.get(level)) {
-                List<D> rowContents = allRowContents.get(shortPrefixRow.getRowContentId());
-                List<Word<I>> newSuffixesForThisLevel = newSuffixesList.get(level);
-                int oldNumberOfPrefixesForThisLevel = suffixes.get(level).size();
-
-                if (rowContents.size() == newSuffixesForThisLevel.size()) {
-                    // The row contents have a length equal to the old number of prefixes
-                    final int l = level;
-                    List<Integer> rowContentOnLevels = rowContentsToLevels.get(rowContents);
-                    if (rowContentOnLevels == null) {
-                        rowContentOnLevels = new ArrayList<>();
-                    }
-
-                    if (rowContentOnLevels.stream().anyMatch(i -> i != l)) {
-                        // The row contents is used on a different already seen level
-                        // Therefore, if we actually modify the row contents, we must change the id
-                        if (newSuffixesForThisLevel.size() != 0) {
-                            List<D> newRowContents = new ArrayList<>(oldNumberOfPrefixesForThisLevel + newSuffixesForThisLevel.size());
-                            newRowContents.addAll(rowContents.subList(0, oldNumberOfPrefixesForThisLevel));
-                            fetchQueriesResults(queryIt, newRowContents, newSuffixesForThisLevel.size());
-                            processContents(shortPrefixRow, newRowContents);
-                            List<Integer> levels = rowContentsToLevels.get(newRowContents);
-                            if (levels == null) {
-                                levels = new ArrayList<>();
-                            }
-                            levels.add(level);
-                            rowContentsToLevels.put(newRowContents, levels);
-                        }
-                        else {
-                            rowContentOnLevels.add(level);
-                            rowContentsToLevels.put(rowContents, rowContentOnLevels);
-                        }
-                    }
-                    else {
-                        // This is the first time we see this row contents
-                        // So, we just update the row contents
-                        fetchQueriesResults(queryIt, rowContents, newSuffixesForThisLevel.size());
-                        processContents(shortPrefixRow, rowContents);
-                        rowContentsIdsMap.put(rowContents, shortPrefixRow.getRowContentId());
-                        List<Integer> levels = rowContentsToLevels.get(rowContents);
-                        if (levels == null) {
-                            levels = new ArrayList<>();
-                        }
-                        levels.add(level);
-                        rowContentsToLevels.put(rowContents, levels);
-                    }
-                }
-                else {
-                    // This row contents have already been modified
-                    // We need to check if this row must still use this row contents
-                    List<D> newRowContents = new ArrayList<>(oldNumberOfPrefixesForThisLevel + newSuffixesList.size());
-                    newRowContents.addAll(rowContents.subList(0, oldNumberOfPrefixesForThisLevel));
-                    fetchQueriesResults(queryIt, newRowContents, newSuffixesForThisLevel.size());
-                    processContents(shortPrefixRow, newRowContents);
-                    List<Integer> levels = rowContentsToLevels.get(newRowContents);
-                    if (levels == null) {
-                        levels = new ArrayList<>();
-                    }
-                    levels.add(level);
-                    rowContentsToLevels.put(newRowContents, levels);
-                }
+            int numberOfNewSuffixes = newSuffixesList.get(level).size();
+            if (numberOfNewSuffixes == 0) {
+                continue;
             }
-        }
-
-        List<List<Row<I>>> unclosed = new ArrayList<>();
-        int numberOfDistinctShortPrefixRows = numberOfDistinctRows();
 
-        // Then, the long prefix rows
-        for (StratifiedObservationRow<I> longPrefixRow : allLongPrefixRows) {
-            int rowContentId = longPrefixRow.getRowContentId();
-            List<D> rowContents = allRowContents.get(rowContentId);
-            int level = ComputeCounterValue.computeCounterValue(longPrefixRow.getLabel(), alphabet);
-
-            List<Word<I>> newSuffixesForThisLevel = newSuffixesList.get(level);
-            int oldNumberOfPrefixesForThisLevel = suffixes.get(level).size();
-
-            if (rowContents.size() == oldNumberOfPrefixesForThisLevel) {
-                // The row contents have a length equal to the old number of prefixes
-                final int l = level;
-                List<Integer> rowContentOnLevels = rowContentsToLevels.get(rowContents);
-                if (rowContentOnLevels == null) {
-                    rowContentOnLevels = new ArrayList<>();
-                }
+            // The new cells can only refine the equivalence classes
+            // So, we split each class according to the new cells of its rows
+            Map<Integer, Map<List<D>, List<StratifiedObservationRow<I>>>> splits = new LinkedHashMap<>();
+            for (StratifiedObservationRow<I> row : getRowsWithContents(level)) {
+                List<D> newCells = createRowContents(numberOfNewSuffixes);
+                fetchQueriesResults(queryIt, newCells, numberOfNewSuffixes);
+                splits.computeIfAbsent(row.getRowContentId(), id -> new LinkedHashMap<>()).computeIfAbsent(newCells, cells -> new ArrayList<>()).add(row);
+            }
 
-                if (rowContentOnLevels.stream().anyMatch(i -> i != l)) {
-                    // The row contents is used on a different already seen level
-                    // Therefore, if we actually modify the row contents, we must change the id
-                    if (newSuffixesForThisLevel.size() != 0) {
-                        List<D> newRowContents = new ArrayList<>(oldNumberOfPrefixesForThisLevel + newSuffixesForThisLevel.size());
-                        newRowContents.addAll(rowContents.subList(0, oldNumberOfPrefixesForThisLevel));
-                        fetchQueriesResults(queryIt, newRowContents, newSuffixesForThisLevel.size());
-                        if (processContents(longPrefixRow, newRowContents)) {
-                            unclosed.add(new ArrayList<>());
-                        }
-                
-                        if (longPrefixRow.getRowContentId() >= numberOfDistinctShortPrefixRows) {
-                            unclosed.get(longPrefixRow.getRowContentId() - numberOfDistinctShortPrefixRows).add(longPrefixRow);
-                        }
-                        List<Integer> levels = rowContentsToLevels.get(newRowContents);
-                        if (levels == null) {
-                            levels = new ArrayList<>();
-                        }
-                        levels.add(level);
-                        rowContentsToLevels.put(newRowContents, levels);
+            // The long prefix rows that moved to a new class, by class
+            Map<Integer, List<Row<I>>> movedLongPrefixRows = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Map<List<D>, List<StratifiedObservationRow<I>>>> split : splits.entrySet()) {
+                int contentId = split.getKey();
+                List<D> rowContents = allRowContents.get(contentId);
+                for (Map.Entry<List<D>, List<StratifiedObservationRow<I>>> part : split.getValue().entrySet()) {
+                    List<StratifiedObservationRow<I>> members = part.getValue();
+                    int newContentId;
+                    if (members.size() == numberOfMembers[contentId]) {
+                        // The whole class gets the same new cells, so we extend its contents in place
+                        rowContentsIdsMap.remove(rowContents);
+                        rowContents.addAll(part.getKey());
+                        newContentId = rowContentsIdsMap.computeIfAbsent(rowContents, contents -> contentId);
                     }
                     else {
-                        rowContentOnLevels.add(level);
-                        rowContentsToLevels.put(rowContents, rowContentOnLevels);
-                    }
-                }
-                else {
-                    // This is the first time we see this row contents
-                    // So, we just update the row contents
-                    fetchQueriesResults(queryIt, rowContents, newSuffixesForThisLevel.size());
-                    if (processContents(longPrefixRow, rowContents)) {
-                        unclosed.add(new ArrayList<>());
+                        List<D> newRowContents = createRowContents(rowContents.size() + numberOfNewSuffixes);
+                        newRowContents.addAll(rowContents);
+                        newRowContents.addAll(part.getKey());
+                        newContentId = internRowContents(newRowContents);
                     }
-                    if (longPrefixRow.getRowContentId() >= numberOfDistinctShortPrefixRows) {
-                        unclosed.get(longPrefixRow.getRowContentId() - numberOfDistinctShortPrefixRows).add(longPrefixRow);
+
+                    if (newContentId == contentId) {
+                        continue;
                     }
-                    List<Integer> levels = rowContentsToLevels.get(rowContents);
-                    if (levels == null) {
-                        levels = new ArrayList<>();
+                    for (StratifiedObservationRow<I> row : members) {
+                        assignContentId(row, newContentId);
+                        if (!row.isShortPrefixRow()) {
+                            movedLongPrefixRows.computeIfAbsent(newContentId, id -> new ArrayList<>()).add(row);
+                        }
                     }
-                    levels.add(level);
-                    rowContentsToLevels.put(rowContents, levels);
                 }
             }
-            else {
-                // This row contents have already been modified
-                List<D> newRowContents = new ArrayList<>(suffixes.get(level).size() + newSuffixesList.size());
-                newRowContents.addAll(rowContents.subList(0, suffixes.get(level).size()));
-                fetchQueriesResults(queryIt, newRowContents, newSuffixesList.get(level).size());
-                if (processContents(longPrefixRow, newRowContents)) {
-                    unclosed.add(new ArrayList<>());
-                }
-                
-                if (longPrefixRow.getRowContentId() >= numberOfDistinctShortPrefixRows) {
-                    unclosed.get(longPrefixRow.getRowContentId() - numberOfDistinctShortPrefixRows).add(longPrefixRow);
-                }
 
-                List<Integer> levels = rowContentsToLevels.get(newRowContents);
-                if (levels == null) {
-                    levels = new ArrayList<>();
+            Map<Integer, StratifiedObservationRow<I>> representatives = getRepresentativeRows(level);
+            for (Map.Entry<Integer, List<Row<I>>> moved : movedLongPrefixRows.entrySet()) {
+                if (!representatives.containsKey(moved.getKey())) {
+                    unclosed.add(moved.getValue());
                 }
-                levels.add(level);
-                rowContentsToLevels.put(newRowContents, levels);
             }
         }
 
         for (int i = 0 ; i < newSuffixesList.size() ; i++) {
-            suffixes.get(i).addAll(newSuffixesList.get(i));
+            for (Word<I> suffix : newSuffixesList.get(i)) {
+                addSuffixToLevel(suffix, i);
+            }
         }
 
         return unclosed;
     }
 
+    /**
+     * Gives the short and long prefix rows of the level that have contents.
+     * @param level The level
+     * @return The rows
+     */
+    private List<StratifiedObservationRow<I>> getRowsWithContents(int level) {
+        List<StratifiedObservationRow<I>> rows = new ArrayList<>(shortPrefixRows.get(level).size() + longPrefixRows.get(level).size());
+        for (StratifiedObservationRow<I> row : shortPrefixRows.get(level)) {
+            if (row.hasContents()) {
+                rows.add(row);
+            }
+        }
+        for (StratifiedObservationRow<I> row : longPrefixRows.get(level)) {
+            if (row.hasContents()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
     @Override
     public List<List<Row<I>>> addShortPrefixes(List<? extends Word<I>> shortPrefixes, MembershipOracle<I, D> oracle) {
         List<Row<I>> toShortPrefixRows = new ArrayList<>(shortPrefixes.size());
@@ -618,12 +607,12 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
             return;
         }
 
-        Word<I> longPrefix = row.getLabel();
         allLongPrefixRows.remove(row);
+        longPrefixRows.get(row.getLevel()).remove(row);
 
-        int counterValue = ComputeCounterValue.computeCounterValue(longPrefix, alphabet);
-        shortPrefixRows.get(counterValue).add(row);
+        shortPrefixRows.get(row.getLevel()).add(row);
         row.makeShort(alphabet.size());
+        representativeRows = null;
     }
 
     @Override
@@ -652,7 +641,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         // Starting with short prefixes
         for (StratifiedObservationRow<I> shortPrefixRow : freshShortPrefixRows) {
             Word<I> shortPrefix = shortPrefixRow.getLabel();
-            int counterValue = ComputeCounterValue.computeCounterValue(shortPrefix, alphabet);
+            int counterValue = shortPrefixRow.getLevel();
             increaseLevelLimit(counterValue);
             createQueries(queries, shortPrefix, suffixes.get(counterValue));
 
@@ -666,7 +655,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
             // It might happen that a long prefix is already in the fresh short prefix
             // We ignore this long prefix
             List<StratifiedObservationRow<I>> newLongPrefix = longPrefixes.stream().
-                filter(longPrefixRow -> !freshShortPrefixRows.contains(longPrefixRow)).
+                filter(longPrefixRow -> !longPrefixRow.isShortPrefixRow()).
                 collect(Collectors.toList());
             freshLongPrefixRows.addAll(newLongPrefix);
         }
@@ -679,9 +668,8 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         // We now fill the rows
         // Again, we start with the short prefixes
         for (StratifiedObservationRow<I> shortPrefixRow : freshShortPrefixRows) {
-            int counterValue = ComputeCounterValue.computeCounterValue(shortPrefixRow.getLabel(), alphabet);
-            int numberOfSuffixes = suffixes.get(counterValue).size();
-            List<D> rowContents = new ArrayList<>(numberOfSuffixes);
+            int numberOfSuffixes = suffixes.get(shortPrefixRow.getLevel()).size();
+            List<D> rowContents = createRowContents(numberOfSuffixes);
             fetchQueriesResults(queryIt, rowContents, numberOfSuffixes);
             processContents(shortPrefixRow, rowContents);
         }
@@ -690,9 +678,8 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
         // Then, the long prefixes
         for (StratifiedObservationRow<I> longPrefixRow : freshLongPrefixRows) {
-            int counterValue = ComputeCounterValue.computeCounterValue(longPrefixRow.getLabel(), alphabet);
-            int numSuffixes = suffixes.get(counterValue).size();
-            List<D> rowContents = new ArrayList<>(numSuffixes);
+            int numSuffixes = suffixes.get(longPrefixRow.getLevel()).size();
+            List<D> rowContents = createRowContents(numSuffixes);
 
             fetchQueriesResults(queryIt, rowContents, numSuffixes);
             if (processContents(longPrefixRow, rowContents)) {
@@ -728,15 +715,32 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         if (newLimit > maxLevel) {
             maxLevel = newLimit;
             while (shortPrefixRows.size() <= newLimit) {
-                shortPrefixRows.add(new LinkedList<>());
+                shortPrefixRows.add(new ArrayList<>());
+                longPrefixRows.add(new LinkedHashSet<>());
             }
             while (suffixes.size() <= newLimit) {
-                suffixes.add(new LinkedList<>());
-                suffixes.get(suffixes.size() - 1).add(Word.epsilon());
+                suffixes.add(new ArrayList<>());
+                suffixIndexes.add(new WordTrie<>());
+                addSuffixToLevel(Word.epsilon(), suffixes.size() - 1);
             }
         }
     }
 
+    /**
+     * Adds the suffix at the end of the suffixes of the level, if it is not yet there
+     * @param suffix The suffix
+     * @param level The level
+     * @return True iff the suffix was added
+     */
+    private boolean addSuffixToLevel(Word<I> suffix, int level) {
+        List<Word<I>> suffixesLevel = suffixes.get(level);
+        if (suffixIndexes.get(level).putIfAbsent(suffix, suffixesLevel.size()) != null) {
+            return false;
+        }
+        suffixesLevel.add(suffix);
+        return true;
+    }
+
     @Override
     public int getLevelLimit() {
         return maxLevel;
@@ -744,6 +748,22 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
 
     @Override
     public StratifiedObservationRow<I> findUnclosedRow() {
+        List<StratifiedObservationRow<I>> unclosedRows = findUnclosedRows();
+        if (unclosedRows.isEmpty()) {
+            return null;
+        }
+        return unclosedRows.get(0);
+    }
+
+    @Override
+    public List<StratifiedObservationRow<I>> findUnclosedRows() {
+        List<StratifiedObservationRow<I>> unclosedRows = new ArrayList<>();
+        // For each level, the row content ids of the unclosed rows already found
+        List<Set<Integer>> missingContentIds = new ArrayList<>(maxLevel + 1);
+        for (int i = 0 ; i <= maxLevel ; i++) {
+            missingContentIds.add(new HashSet<>());
+        }
+
         for (int i = 0 ; i <= maxLevel ; i++) {
             for (I symbol : alphabet) {
                 if ((i == 0 && alphabet.isReturnSymbol(symbol)) || (i == maxLevel && alphabet.isCallSymbol(symbol))) {
@@ -751,86 +771,132 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
                     continue;
                 }
 
+                int symbolIndex = alphabet.getSymbolIndex(symbol);
+                int targetLevel = i + ComputeCounterValue.signOf(symbol, alphabet);
+                Map<Integer, StratifiedObservationRow<I>> targetRepresentatives = getRepresentativeRows(targetLevel);
                 for (StratifiedObservationRow<I> shortPrefixRow : shortPrefixRows.get(i)) {
-                    StratifiedObservationRow<I> longPrefixRow = shortPrefixRow.getSuccessor(alphabet.getSymbolIndex(symbol));
+                    StratifiedObservationRow<I> longPrefixRow = shortPrefixRow.getSuccessor(symbolIndex);
                     
                     if (longPrefixRow == null) {
-                        return createLongPrefixRow(shortPrefixRow.getLabel().append(symbol));
+                        // The row is created only once and linked to the short prefix, so that the next calls do not create it again
+                        Word<I> longPrefix = shortPrefixRow.getLabel().append(symbol);
+                        longPrefixRow = getRow(longPrefix);
+                        if (longPrefixRow == null) {
+                            longPrefixRow = createLongPrefixRow(longPrefix);
+                            if (longPrefixRow == null) {
+                                continue;
+                            }
+                        }
+                        shortPrefixRow.setSuccessor(symbolIndex, longPrefixRow);
                     }
                     
-                    // Same row content id => same information in the row => same equivalence class
-                    boolean hasClass = shortPrefixRows.get(i + ComputeCounterValue.signOf(symbol, alphabet)).
-                        stream().
-                        anyMatch(row -> row.getRowContentId() == longPrefixRow.getRowContentId());
+                    if (!longPrefixRow.hasContents()) {
+                        unclosedRows.add(longPrefixRow);
+                        continue;
+                    }
 
-                    if (!hasClass) {
-                        return longPrefixRow;
+                    // Same row content id => same information in the row => same equivalence class
+                    int contentId = longPrefixRow.getRowContentId();
+                    if (!targetRepresentatives.containsKey(contentId) && missingContentIds.get(targetLevel).add(contentId)) {
+                        unclosedRows.add(longPrefixRow);
                     }
                 }
             }
         }
-        return null;
+        return unclosedRows;
+    }
+
+    /**
+     * Gets the first short prefix row of the given level for each row content id.
+     * 
+     * The maps are recomputed only if a short prefix row was modified since the last call.
+     * @param level The level
+     * @return The map from row content ids to representatives
+     */
+    private Map<Integer, StratifiedObservationRow<I>> getRepresentativeRows(int level) {
+        if (representativeRows == null) {
+            representativeRows = new ArrayList<>(maxLevel + 1);
+            for (List<StratifiedObservationRow<I>> rows : shortPrefixRows) {
+                Map<Integer, StratifiedObservationRow<I>> representatives = new LinkedHashMap<>();
+                for (StratifiedObservationRow<I> row : rows) {
+                    representatives.putIfAbsent(row.getRowContentId(), row);
+                }
+                representativeRows.add(representatives);
+            }
+        }
+        return representativeRows.get(level);
     }
 
     @Override
     public Inconsistency<I> findInconsistency() {
+        List<Inconsistency<I>> inconsistencies = findInconsistencies();
+        if (inconsistencies.isEmpty()) {
+            return null;
+        }
+        return inconsistencies.get(0);
+    }
+
+    @Override
+    public List<Inconsistency<I>> findInconsistencies() {
+        List<Inconsistency<I>> inconsistencies = new ArrayList<>();
         for (int i = 0; i <= maxLevel ; i++) {
+            // The short prefix rows of the level, grouped by row content id.
+            // Only the first row of each group is stored, as each row is compared with it
+            Map<Integer, StratifiedObservationRow<I>> buckets = getRepresentativeRows(i);
+
             for (I symbol : alphabet) {
                 if ((i == 0 && alphabet.isReturnSymbol(symbol)) || (i == maxLevel && alphabet.isCallSymbol(symbol))) {
                     // We skip
                     continue;
                 }
 
-                for (StratifiedObservationRow<I> uRow : shortPrefixRows.get(i)) {
-                    for (StratifiedObservationRow<I> vRow : shortPrefixRows.get(i)) {
-                        if (uRow.getRowContentId() == vRow.getRowContentId()) {
-                            StratifiedObservationRow<I> uaRow = uRow.getSuccessor(alphabet.getSymbolIndex(symbol));
-                            StratifiedObservationRow<I> vaRow = vRow.getSuccessor(alphabet.getSymbolIndex(symbol));
+                int symbolIndex = alphabet.getSymbolIndex(symbol);
+                // The buckets for which an inconsistency is already known for this symbol
+                Set<Integer> inconsistentBuckets = new HashSet<>();
+                for (StratifiedObservationRow<I> vRow : shortPrefixRows.get(i)) {
+                    StratifiedObservationRow<I> uRow = buckets.get(vRow.getRowContentId());
+                    if (uRow == vRow || inconsistentBuckets.contains(vRow.getRowContentId())) {
+                        continue;
+                    }
 
-                            if (uaRow == null && vaRow == null) {
-                                // Actually, the table is not closed (since ua and va are not known)
-                                // So, we just skip this case and say that the table is consistent
-                                // It's fine as the user is supposed to make the table close and consistent (and we can't really say that the classes are different)
-                                continue;
-                            }
+                    StratifiedObservationRow<I> uaRow = uRow.getSuccessor(symbolIndex);
+                    StratifiedObservationRow<I> vaRow = vRow.getSuccessor(symbolIndex);
 
-                            if (uaRow == null || vaRow == null) {
-                                return new Inconsistency<>(uRow, vRow, symbol);
-                            }
-                            
-                            if (uaRow.getRowContentId() != vaRow.getRowContentId()) {
-                                return new Inconsistency<>(uRow, vRow, symbol);
-                            }
-                        }
+                    if (uaRow == null && vaRow == null) {
+                        // Actually, the table is not closed (since ua and va are not known)
+                        // So, we just skip this case and say that the table is consistent
+                        // It's fine as the user is supposed to make the table close and consistent (and we can't really say that the classes are different)
+                        continue;
+                    }
+
+                    if (uaRow == null || vaRow == null || uaRow.getRowContentId() != vaRow.getRowContentId()) {
+                        inconsistencies.add(new Inconsistency<>(uRow, vRow, symbol));
+                        inconsistentBuckets.add(vRow.getRowContentId());
                     }
                 }
             }
         }
-        return null;
+        return inconsistencies;
     }
 
     /**
      * Gets a representative for the given row.
      * 
-     * Since the rows are stored in lists, the same row contents id implies the same returned representative.
+     * The same row contents id implies the same returned representative.
      * @param row The row we want a representative of
      * @return A representative
      */
-    protected StratifiedObservationRow<I> getRepresentativeRow(StratifiedObservationRow<I> row) {
-        for (StratifiedObservationRow<I> spRow : shortPrefixRows.get(ComputeCounterValue.computeCounterValue(row.getLabel(), alphabet))) {
-            if (spRow.getRowContentId() == row.getRowContentId()) {
-                return spRow;
-            }
-        }
-        return null;
+    @Override
+    public StratifiedObservationRow<I> getRepresentativeRow(StratifiedObservationRow<I> row) {
+        return getRepresentativeRows(row.getLevel()).get(row.getRowContentId());
     }
 
     @Override
     public Word<I> findDistinguishingSuffix(Inconsistency<I> inconsistency) {
         int symIdx = getInputAlphabet().getSymbolIndex(inconsistency.getSymbol());
-        Row<I> row1 = inconsistency.getFirstRow().getSuccessor(symIdx);
+        StratifiedObservationRow<I> row1 = getRow(inconsistency.getFirstRow().getSuccessor(symIdx).getRowId());
         Row<I> row2 = inconsistency.getSecondRow().getSuccessor(symIdx);
-        int level = ComputeCounterValue.computeCounterValue(row1.getLabel(), alphabet);
+        int level = row1.getLevel();
 
         for (int i = 0 ; i < getSuffixes(level).size() ; i++) {
             if (!Objects.equals(cellContents(row1, i), cellContents(row2, i))) {
@@ -849,14 +915,7 @@ public abstract class AbstractStratifiedObservationTable<I extends Comparable<I>
         List<List<StratifiedObservationRow<I>>> representatives = new ArrayList<>(getLevelLimit() + 1);
 
         for (int level = 0 ; level <= getLevelLimit() ; level++) {
-            List<StratifiedObservationRow<I>> representativesLevel = new LinkedList<>();
-            for (StratifiedObservationRow<I> shortPrefixRow : shortPrefixRows.get(level)) {
-                StratifiedObservationRow<I> representative = getRepresentativeRow(shortPrefixRow);
-                if (!representativesLevel.contains(representative)) {
-                    representativesLevel.add(representative);
-                }
-            }
-            representatives.add(representativesLevel);
+            representatives.add(new ArrayList<>(getRepresentativeRows(level).values()));
         }
 
         return representatives;
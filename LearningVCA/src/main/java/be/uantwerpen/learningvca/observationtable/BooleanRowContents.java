@@ -0,0 +1,130 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.observationtable;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The contents of a row of a Boolean observation table, packed in a bitset.
+ * 
+ * Each cell uses one bit.
+ * The hash code respects the contract of {@link List#hashCode()} and is updated each time a cell is appended.
+ * Thus, hashing a row is constant-time and comparing two rows of this type is done word by word.
+ * 
+ * Cells can only be appended (or changed), not removed.
+ * @author Gaëtan Staquet
+ */
+final class BooleanRowContents extends AbstractList<Boolean> implements RandomAccess {
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    private long[] words;
+    private int size;
+    private int hash;
+
+    /**
+     * Creates an empty row contents
+     * @param capacity The expected number of cells
+     */
+    BooleanRowContents(int capacity) {
+        this.words = new long[Math.max(1, wordIndex(capacity - 1) + 1)];
+        this.size = 0;
+        this.hash = 1;
+    }
+
+    private static int wordIndex(int index) {
+        return index / BITS_PER_WORD;
+    }
+
+    private static int hashOf(boolean value) {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    public Boolean get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("BooleanRowContents: index " + index + " out of bounds for size " + size);
+        }
+        return (words[wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public Boolean set(int index, Boolean value) {
+        if (value == null) {
+            throw new IllegalArgumentException("BooleanRowContents: null cells are not supported");
+        }
+        boolean old = get(index);
+        if (old != value) {
+            words[wordIndex(index)] ^= 1L << index;
+            // The contribution of a cell to the hash is multiplied by 31 for each following cell
+            int factor = 1;
+            for (int i = index + 1 ; i < size ; i++) {
+                factor *= 31;
+            }
+            hash += (hashOf(value) - hashOf(old)) * factor;
+        }
+        return old;
+    }
+
+    @Override
+    public boolean add(Boolean value) {
+        if (value == null) {
+            throw new IllegalArgumentException("BooleanRowContents: null cells are not supported");
+        }
+        int wordIndex = wordIndex(size);
+        if (wordIndex == words.length) {
+            words = Arrays.copyOf(words, 2 * words.length);
+        }
+        if (value) {
+            words[wordIndex] |= 1L << size;
+        }
+        size++;
+        hash = 31 * hash + hashOf(value);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof BooleanRowContents) {
+            BooleanRowContents other = (BooleanRowContents) obj;
+            if (other.size != size || other.hash != hash) {
+                return false;
+            }
+            // The bits after size are always zero
+            int usedWords = wordIndex(size - 1) + 1;
+            return Arrays.equals(words, 0, usedWords, other.words, 0, usedWords);
+        }
+        return super.equals(obj);
+    }
+}
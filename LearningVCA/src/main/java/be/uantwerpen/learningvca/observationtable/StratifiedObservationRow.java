@@ -29,6 +29,7 @@ import net.automatalib.words.Word;
  */
 public class StratifiedObservationRow<I> implements Row<I> {
     private final Word<I> label;
+    private final int level;
     private final int rowID;
     private int rowContentId;
     private List<StratifiedObservationRow<I>> successors;
@@ -36,10 +37,12 @@ public class StratifiedObservationRow<I> implements Row<I> {
     /**
      * Constructs a long prefix row
      * @param label The long prefix
+     * @param level The counter value of the long prefix
      * @param rowID The ID of this row
      */
-    public StratifiedObservationRow(Word<I> label, int rowID) {
+    public StratifiedObservationRow(Word<I> label, int level, int rowID) {
         this.label = label;
+        this.level = level;
         this.rowID = rowID;
         this.rowContentId = -1;
         successors = null;
@@ -48,11 +51,13 @@ public class StratifiedObservationRow<I> implements Row<I> {
     /**
      * Constructs a short prefix row
      * @param label The short prefix
+     * @param level The counter value of the short prefix
      * @param rowID The ID of this row
      * @param alphabetSize The size of the alphabet
      */
-    public StratifiedObservationRow(Word<I> label, int rowID, int alphabetSize) {
+    public StratifiedObservationRow(Word<I> label, int level, int rowID, int alphabetSize) {
         this.label = label;
+        this.level = level;
         this.rowID = rowID;
         this.rowContentId = -1;
         makeShort(alphabetSize);
@@ -77,6 +82,13 @@ public class StratifiedObservationRow<I> implements Row<I> {
         return label;
     }
 
+    /**
+     * @return The level of this row, that is, the counter value of its label
+     */
+    public int getLevel() {
+        return level;
+    }
+
     @Override
     public boolean isShortPrefixRow() {
         // A row is short iff it has successors
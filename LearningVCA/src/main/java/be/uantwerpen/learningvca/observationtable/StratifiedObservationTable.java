@@ -24,8 +24,10 @@ import java.util.List;
 import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.datastructure.observationtable.Inconsistency;
 import de.learnlib.datastructure.observationtable.MutableObservationTable;
 import de.learnlib.datastructure.observationtable.Row;
+import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 
 /**
@@ -112,6 +114,36 @@ public interface StratifiedObservationTable<I extends Comparable<I>, D> extends
      */
     LimitedBehaviorGraph<I> toLimitedBehaviorGraph();
 
+    @Override
+    VPDAlphabet<I> getInputAlphabet();
+
     @Override
     StratifiedObservationRow<I> getRow(Word<I> word);
+
+    @Override
+    StratifiedObservationRow<I> getRow(int idx);
+
+    /**
+     * Gets the short prefix row representing the equivalence class of the row.
+     * @param row The row
+     * @return The representative, or null if no short prefix row of the level has the same contents
+     */
+    StratifiedObservationRow<I> getRepresentativeRow(StratifiedObservationRow<I> row);
+
+    /**
+     * Finds every unclosed row in one pass.
+     * 
+     * At most one row is returned for each missing equivalence class, so promoting every returned row to a short prefix does not create redundant representatives.
+     * @return The unclosed rows (possibly empty)
+     */
+    List<StratifiedObservationRow<I>> findUnclosedRows();
+
+    /**
+     * Finds the inconsistencies in one pass.
+     * 
+     * The short prefix rows of a level are grouped by row content id and each row is only compared with the first row of its group.
+     * At most one inconsistency is returned for each group and symbol.
+     * @return The inconsistencies (possibly empty)
+     */
+    List<Inconsistency<I>> findInconsistencies();
 }
\ No newline at end of file
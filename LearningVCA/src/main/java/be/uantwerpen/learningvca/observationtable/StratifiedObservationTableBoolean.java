@@ -40,6 +40,14 @@ public class StratifiedObservationTableBoolean<I extends Comparable<I>>
         super(alphabet);
     }
 
+    /**
+     * The rows are packed in bitsets, which makes them cheaper to store, hash and compare.
+     */
+    @Override
+    protected List<Boolean> createRowContents(int numberOfCells) {
+        return new BooleanRowContents(numberOfCells);
+    }
+
     @Override
     public VCA<?, I> toVCA() {
         DefaultVCA<I> vca = new DefaultVCA<>(alphabet, getLevelLimit());
@@ -0,0 +1,126 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.observationtable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.automatalib.words.Word;
+
+/**
+ * A trie mapping words to values.
+ * 
+ * Looking up a word walks the trie symbol by symbol, without hashing the whole word.
+ * @param <I> The input alphabet type
+ * @param <V> The type of the values
+ * @author Gaëtan Staquet
+ */
+final class WordTrie<I, V> {
+    private static final class Node<I, V> {
+        private Map<I, Node<I, V>> children;
+        private V value;
+
+        private Node<I, V> getChild(I symbol) {
+            if (children == null) {
+                return null;
+            }
+            return children.get(symbol);
+        }
+
+        private Node<I, V> getOrCreateChild(I symbol) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(symbol, s -> new Node<>());
+        }
+    }
+
+    private final Node<I, V> root;
+    private int size;
+
+    WordTrie() {
+        this.root = new Node<>();
+        this.size = 0;
+    }
+
+    /**
+     * @param word The word
+     * @return The value of the word, or null if the word is not in the trie
+     */
+    V get(Word<I> word) {
+        Node<I, V> node = root;
+        for (I symbol : word) {
+            node = node.getChild(symbol);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * @param word The word
+     * @return True iff the word is in the trie
+     */
+    boolean containsKey(Word<I> word) {
+        return get(word) != null;
+    }
+
+    /**
+     * Associates the value to the word, replacing the previous value if the word is already in the trie
+     * @param word The word
+     * @param value The value. It can not be null
+     * @return The previous value of the word, or null if the word was not in the trie
+     */
+    V put(Word<I> word, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("WordTrie: null values are not supported");
+        }
+        Node<I, V> node = root;
+        for (I symbol : word) {
+            node = node.getOrCreateChild(symbol);
+        }
+        V previous = node.value;
+        if (previous == null) {
+            size++;
+        }
+        node.value = value;
+        return previous;
+    }
+
+    /**
+     * Associates the value to the word, if the word is not yet in the trie
+     * @param word The word
+     * @param value The value. It can not be null
+     * @return The previous value of the word, or null if the word was not in the trie
+     */
+    V putIfAbsent(Word<I> word, V value) {
+        V previous = get(word);
+        if (previous != null) {
+            return previous;
+        }
+        return put(word, value);
+    }
+
+    /**
+     * @return The number of words in the trie
+     */
+    int size() {
+        return size;
+    }
+}
@@ -18,9 +18,11 @@
 package be.uantwerpen.learningvca.oracles;
 
 import java.util.Collection;
+import java.util.function.BooleanSupplier;
 
 import javax.annotation.Nullable;
 
+import be.uantwerpen.learningvca.vca.EmptinessCheck;
 import be.uantwerpen.learningvca.vca.ProductVCA;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.oracle.EquivalenceOracle;
@@ -31,21 +33,65 @@ import net.automatalib.words.Word;
 /**
  * Equivalence query between two VCAs
  * 
+ * The counterexample is an accepted word of the product of the two VCAs (with a XOR as acceptance).
+ * Depending on the {@link CounterexampleMode}, it is a shortest counterexample or a counterexample of minimal height.
  * @param <I> Input alphabet type
  * @author Gaëtan Staquet
  */
 public class EquivalenceVCAOracle<I> implements EquivalenceOracle<VCA<?, I>, I, Boolean> {
+    /**
+     * The kind of counterexamples returned by the oracle
+     */
+    public enum CounterexampleMode {
+        /**
+         * A counterexample of minimal length
+         */
+        SHORTEST,
+        /**
+         * A counterexample whose maximal counter value is minimal
+         */
+        MINIMAL_HEIGHT
+    }
+
     private final VCA<?, I> sul;
+    private final CounterexampleMode mode;
 
     public EquivalenceVCAOracle(VCA<?, I> sul) {
+        this(sul, CounterexampleMode.SHORTEST);
+    }
+
+    public EquivalenceVCAOracle(VCA<?, I> sul, CounterexampleMode mode) {
         this.sul = sul;
+        this.mode = mode;
     }
 
     @Override
     @Nullable
     public DefaultQuery<I, Boolean> findCounterExample(VCA<?, I> hypothesis, Collection<? extends I> inputs) {
+        return findCounterExample(hypothesis, inputs, () -> false);
+    }
+
+    /**
+     * Searches a counterexample, unless the search is cancelled.
+     * @param hypothesis The hypothesis
+     * @param inputs The inputs
+     * @param cancelled The cancellation flag, checked during the emptiness check of the product
+     * @return A counterexample, or null if there is none
+     * @throws java.util.concurrent.CancellationException If the flag is raised during the search
+     */
+    @Nullable
+    public DefaultQuery<I, Boolean> findCounterExample(VCA<?, I> hypothesis, Collection<? extends I> inputs, BooleanSupplier cancelled) {
         VCA<?, I> productVCA = new ProductVCA<>(sul.getAlphabet(), sul, hypothesis, AcceptanceCombiner.XOR);
-        Word<I> counterexample = productVCA.getAcceptedWord();
+        Word<I> counterexample;
+        switch (mode) {
+            case MINIMAL_HEIGHT:
+                counterexample = EmptinessCheck.findAcceptedWordWithMinimalHeight(productVCA, productVCA.size() + productVCA.getThreshold(), cancelled);
+                break;
+            case SHORTEST:
+            default:
+                counterexample = EmptinessCheck.findShortestAcceptedWord(productVCA, productVCA.size() + productVCA.getThreshold(), cancelled);
+                break;
+        }
         if (counterexample == null) {
             return null;
         }
@@ -0,0 +1,115 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.oracles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.Query;
+
+/**
+ * A membership oracle that splits each batch of queries into several tasks executed by a pool of threads.
+ * 
+ * The wrapped oracle is shared by every task, so it must be thread-safe (a {@link de.learnlib.oracle.membership.SimulatorOracle} on a VCA is).
+ * Batches that are too small to be split are answered on the calling thread.
+ * @param <I> Input alphabet type
+ * @param <D> Output type
+ * @author Gaëtan Staquet
+ */
+public class ParallelMembershipOracle<I, D> implements MembershipOracle<I, D> {
+    /**
+     * The default minimal number of queries per task
+     */
+    public static final int DEFAULT_MIN_BATCH_SIZE = 10;
+
+    private final MembershipOracle<I, D> oracle;
+    private final ExecutorService executor;
+    private final int numberOfTasks;
+    private final int minBatchSize;
+
+    /**
+     * Creates a parallel oracle using the common ForkJoin pool
+     * @param oracle The thread-safe oracle answering the queries
+     */
+    public ParallelMembershipOracle(MembershipOracle<I, D> oracle) {
+        this(oracle, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism(), DEFAULT_MIN_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a parallel oracle.
+     * 
+     * The executor is not shut down by this oracle.
+     * @param oracle The thread-safe oracle answering the queries
+     * @param executor The executor running the tasks
+     * @param numberOfTasks The maximal number of tasks a batch is split into
+     * @param minBatchSize The minimal number of queries in a task
+     */
+    public ParallelMembershipOracle(MembershipOracle<I, D> oracle, ExecutorService executor, int numberOfTasks, int minBatchSize) {
+        if (numberOfTasks < 1) {
+            throw new IllegalArgumentException("ParallelMembershipOracle: the number of tasks must be positive. Received: " + numberOfTasks);
+        }
+        if (minBatchSize < 1) {
+            throw new IllegalArgumentException("ParallelMembershipOracle: the minimal batch size must be positive. Received: " + minBatchSize);
+        }
+        this.oracle = oracle;
+        this.executor = executor;
+        this.numberOfTasks = numberOfTasks;
+        this.minBatchSize = minBatchSize;
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, D>> queries) {
+        int tasks = Math.min(numberOfTasks, queries.size() / minBatchSize);
+        if (tasks <= 1) {
+            oracle.processQueries(queries);
+            return;
+        }
+
+        List<? extends Query<I, D>> list = queries instanceof List ? (List<? extends Query<I, D>>) queries : new ArrayList<>(queries);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int i = 0 ; i < tasks ; i++) {
+            // The queries are split as evenly as possible
+            int start = (int) ((long) list.size() * i / tasks);
+            int end = (int) ((long) list.size() * (i + 1) / tasks);
+            List<? extends Query<I, D>> batch = list.subList(start, end);
+            futures.add(executor.submit(() -> oracle.processQueries(batch)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("ParallelMembershipOracle: interrupted while waiting for the answers", e);
+            }
+            catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("ParallelMembershipOracle: a task failed", e.getCause());
+            }
+        }
+    }
+}
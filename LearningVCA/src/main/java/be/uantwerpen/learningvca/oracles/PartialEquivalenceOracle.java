@@ -18,6 +18,7 @@
 package be.uantwerpen.learningvca.oracles;
 
 import be.uantwerpen.learningvca.behaviorgraph.LimitedBehaviorGraph;
+import be.uantwerpen.learningvca.vca.LimitedBehaviorGraphCache;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.query.DefaultQuery;
 import net.automatalib.automata.fsa.DFA;
@@ -27,15 +28,18 @@ import net.automatalib.words.Word;
 /**
  * Performs a partial equivalence query.
  * 
- * This oracle checks that the behavior graph is correctly learned up to a treshold t
+ * This oracle checks that the behavior graph is correctly learned up to a treshold t.
+ * The behavior graphs of the target VCA are cached, so the VCA must not be modified while the oracle is used.
  * @param <I> Input alphabet type
  * @author Gaëtan Staquet
  */
 public class PartialEquivalenceOracle<I extends Comparable<I>> {
     private VCA<?, I> vca;
+    private LimitedBehaviorGraphCache<I> behaviorGraphs;
 
     public PartialEquivalenceOracle(VCA<?, I> vca) {
         this.vca = vca;
+        this.behaviorGraphs = new LimitedBehaviorGraphCache<>(vca);
     }
 
     /**
@@ -47,7 +51,7 @@ public class PartialEquivalenceOracle<I extends Comparable<I>> {
      * @return A counterexample, or null if the automata are equivalent
      */
     public DefaultQuery<I, Boolean> findCounterExample(LimitedBehaviorGraph<I> hypothesis, int threshold) {
-        DFA<?, I> sul = vca.toLimitedBehaviorGraph(threshold);
+        DFA<?, I> sul = behaviorGraphs.getLimitedBehaviorGraph(threshold);
         Word<I> counterexample = NearLinearEquivalenceTest.findSeparatingWord(sul, hypothesis, vca.getAlphabet());
 
         if (counterexample == null) {
@@ -0,0 +1,155 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.oracles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.api.query.Query;
+import de.learnlib.filter.statistic.Counter;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * A membership oracle that caches the answers of another membership oracle.
+ * 
+ * The answers are stored in a trie.
+ * Moreover, a word whose counter value goes below zero or does not end at zero can not be accepted by any VCA.
+ * Such queries are answered false directly, without looking in the cache or asking the other oracle.
+ * 
+ * Each batch of queries is forwarded to the other oracle as a single batch of the words that are not yet known (without duplicates).
+ * This class is not thread-safe.
+ * @param <I> Input alphabet type
+ * @author Gaëtan Staquet
+ */
+public class VCACacheOracle<I> implements MembershipOracle<I, Boolean> {
+    private static final class Node<I> {
+        private Map<I, Node<I>> children;
+        private Boolean output;
+
+        private Node<I> getOrCreateChild(I symbol) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(symbol, s -> new Node<>());
+        }
+    }
+
+    private final VPDAlphabet<I> alphabet;
+    private final MembershipOracle<I, Boolean> delegate;
+    private final Node<I> root;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter shortCircuits;
+
+    /**
+     * Creates the cache
+     * @param alphabet The pushdown alphabet
+     * @param delegate The membership oracle answering the queries that are not in the cache
+     */
+    public VCACacheOracle(VPDAlphabet<I> alphabet, MembershipOracle<I, Boolean> delegate) {
+        this.alphabet = alphabet;
+        this.delegate = delegate;
+        this.root = new Node<>();
+        this.hits = new Counter("cache hits", "#");
+        this.misses = new Counter("cache misses", "#");
+        this.shortCircuits = new Counter("queries answered without the cache (invalid counter value)", "#");
+    }
+
+    @Override
+    public void processQueries(Collection<? extends Query<I, Boolean>> queries) {
+        List<DefaultQuery<I, Boolean>> unknownQueries = new ArrayList<>();
+        // For each word to ask to the delegate, its node in the trie and the queries waiting for its answer
+        List<Node<I>> unknownNodes = new ArrayList<>();
+        Map<Node<I>, List<Query<I, Boolean>>> waitingQueries = new HashMap<>();
+
+        for (Query<I, Boolean> query : queries) {
+            Word<I> word = query.getInput();
+            int height = ComputeCounterValue.computeHeight(word, alphabet);
+            if (height < 0 || ComputeCounterValue.computeCounterValue(word, alphabet) != 0) {
+                shortCircuits.increment();
+                query.answer(false);
+                continue;
+            }
+
+            Node<I> node = root;
+            for (I symbol : word) {
+                node = node.getOrCreateChild(symbol);
+            }
+
+            if (node.output != null) {
+                hits.increment();
+                query.answer(node.output);
+            }
+            else if (waitingQueries.containsKey(node)) {
+                // The word is already asked in this batch
+                hits.increment();
+                waitingQueries.get(node).add(query);
+            }
+            else {
+                misses.increment();
+                List<Query<I, Boolean>> waiting = new ArrayList<>();
+                waiting.add(query);
+                waitingQueries.put(node, waiting);
+                unknownNodes.add(node);
+                unknownQueries.add(new DefaultQuery<>(word));
+            }
+        }
+
+        if (unknownQueries.isEmpty()) {
+            return;
+        }
+
+        delegate.processQueries(unknownQueries);
+
+        for (int i = 0 ; i < unknownQueries.size() ; i++) {
+            Node<I> node = unknownNodes.get(i);
+            node.output = unknownQueries.get(i).getOutput();
+            for (Query<I, Boolean> query : waitingQueries.get(node)) {
+                query.answer(node.output);
+            }
+        }
+    }
+
+    /**
+     * @return The number of queries answered by the cache
+     */
+    public Counter getHitCounter() {
+        return hits;
+    }
+
+    /**
+     * @return The number of queries forwarded to the other oracle
+     */
+    public Counter getMissCounter() {
+        return misses;
+    }
+
+    /**
+     * @return The number of queries answered false because their counter value is invalid
+     */
+    public Counter getShortCircuitCounter() {
+        return shortCircuits;
+    }
+}
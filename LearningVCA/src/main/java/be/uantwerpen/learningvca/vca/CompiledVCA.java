@@ -0,0 +1,282 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * An immutable, compiled form of a visibly one-counter automaton.
+ * 
+ * Locations are numbered from 0 to size() - 1 and every transition function is stored in a single flat array
+ * indexed by (location, counter value, symbol index in the alphabet).
+ * Counter values above the threshold m all use the transition function of m.
+ * Missing transitions (and the sink location) are represented by {@link #SINK}.
+ * 
+ * The int-based methods ({@link #step(int, int, int)}, {@link #run(int[])} and {@link #accepts(int[])}) do not allocate
+ * and should be preferred when simulating a lot of words.
+ * @param <I> Input alphabet type
+ * @author Gaëtan Staquet
+ */
+public final class CompiledVCA<I> extends AbstractVCA<Integer, I> {
+    /**
+     * The id used for the sink location
+     */
+    public static final int SINK = -1;
+
+    private final int m;
+    private final int alphabetSize;
+    private final int initialLocation;
+    private final boolean[] accepting;
+    /**
+     * The transitions. The successor of (location, counter value c, symbol) is stored at ((location * (m + 1)) + min(c, m)) * |Sigma| + symbol.
+     */
+    private final int[] transitions;
+    /**
+     * The sign (+1, -1 or 0) of each symbol of the alphabet
+     */
+    private final int[] signs;
+    private final List<Integer> locations;
+
+    /**
+     * Compiles a VCA.
+     * 
+     * Later modifications of the given VCA are not reflected in the compiled form.
+     * @param <L> The location type of the VCA to compile
+     * @param vca The VCA to compile
+     */
+    public <L> CompiledVCA(VCA<L, I> vca) {
+        super(vca.getAlphabet());
+        VPDAlphabet<I> alphabet = vca.getAlphabet();
+        List<L> originalLocations = vca.getLocations();
+
+        this.m = vca.getThreshold();
+        this.alphabetSize = alphabet.size();
+        this.accepting = new boolean[originalLocations.size()];
+        this.transitions = new int[originalLocations.size() * (m + 1) * alphabetSize];
+        this.signs = new int[alphabetSize];
+
+        Map<L, Integer> ids = new HashMap<>();
+        List<Integer> locs = new ArrayList<>(originalLocations.size());
+        for (L location : originalLocations) {
+            int id = ids.size();
+            ids.put(location, id);
+            locs.add(id);
+            accepting[id] = vca.isAcceptingLocation(location);
+        }
+        this.locations = Collections.unmodifiableList(locs);
+
+        L initial = vca.getInitialLocation();
+        this.initialLocation = initial == null ? SINK : ids.get(initial);
+
+        for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+            signs[symbolIndex] = ComputeCounterValue.signOf(alphabet.getSymbol(symbolIndex), alphabet);
+        }
+
+        for (L location : originalLocations) {
+            int id = ids.get(location);
+            for (int counterValue = 0 ; counterValue <= m ; counterValue++) {
+                for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+                    L successor = vca.getSuccessor(location, alphabet.getSymbol(symbolIndex), counterValue);
+                    transitions[index(id, counterValue, symbolIndex)] = successor == null ? SINK : ids.get(successor);
+                }
+            }
+        }
+    }
+
+    private int index(int location, int counterValue, int symbolIndex) {
+        int whichFunction = counterValue < m ? counterValue : m;
+        return (location * (m + 1) + whichFunction) * alphabetSize + symbolIndex;
+    }
+
+    /**
+     * Gets the successor of the location when reading the symbol with the given index and with the given counter value.
+     * @param location The id of the starting location, or {@link #SINK}
+     * @param counterValue The counter value
+     * @param symbolIndex The index of the symbol in the alphabet
+     * @return The id of the successor, or {@link #SINK}
+     */
+    public int step(int location, int counterValue, int symbolIndex) {
+        if (location == SINK || counterValue < 0) {
+            return SINK;
+        }
+        return transitions[index(location, counterValue, symbolIndex)];
+    }
+
+    /**
+     * Gets the sign of the symbol with the given index.
+     * @param symbolIndex The index of the symbol in the alphabet
+     * @return +1 for a call symbol, -1 for a return symbol and 0 for an internal symbol
+     */
+    public int getSign(int symbolIndex) {
+        return signs[symbolIndex];
+    }
+
+    /**
+     * @return The id of the initial location, or {@link #SINK}
+     */
+    public int getInitialLocationId() {
+        return initialLocation;
+    }
+
+    /**
+     * Is the location with the given id accepting?
+     * @param location The id of the location, or {@link #SINK}
+     * @return True iff the location is accepting
+     */
+    public boolean isAcceptingLocation(int location) {
+        return location != SINK && accepting[location];
+    }
+
+    /**
+     * Converts a word into the indices of its symbols in the alphabet.
+     * @param word The word
+     * @return The indices of the symbols
+     */
+    public int[] toSymbolIndices(Word<? extends I> word) {
+        int[] indices = new int[word.size()];
+        for (int i = 0 ; i < word.size() ; i++) {
+            indices[i] = getAlphabet().getSymbolIndex(word.getSymbol(i));
+        }
+        return indices;
+    }
+
+    /**
+     * Reads the word (given as symbol indices) from the initial configuration.
+     * 
+     * If a transition is missing or if the counter value goes below zero, the sink is reached.
+     * @param word The indices of the symbols of the word
+     * @return The id of the reached location, or {@link #SINK}
+     */
+    public int run(int[] word) {
+        int location = initialLocation;
+        int counterValue = 0;
+        for (int i = 0 ; i < word.length && location != SINK ; i++) {
+            location = step(location, counterValue, word[i]);
+            counterValue += signs[word[i]];
+            if (counterValue < 0) {
+                location = SINK;
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Checks whether the word (given as symbol indices) is accepted.
+     * @param word The indices of the symbols of the word
+     * @return True iff the word is accepted
+     */
+    public boolean accepts(int[] word) {
+        int counterValue = 0;
+        for (int symbolIndex : word) {
+            counterValue += signs[symbolIndex];
+        }
+        return counterValue == 0 && isAcceptingLocation(run(word));
+    }
+
+    @Override
+    public Integer getInitialLocation() {
+        return toLocation(initialLocation);
+    }
+
+    @Override
+    public int size() {
+        return accepting.length;
+    }
+
+    @Override
+    public List<Integer> getLocations() {
+        return locations;
+    }
+
+    @Override
+    public int getThreshold() {
+        return m;
+    }
+
+    @Override
+    public boolean isAcceptingLocation(Integer loc) {
+        return loc != null && accepting[loc];
+    }
+
+    @Override
+    public Integer getCallSuccessor(@Nullable Integer loc, I symbol, int counterValue) {
+        return getSuccessor(loc, symbol, counterValue);
+    }
+
+    @Override
+    public Integer getReturnSuccessor(@Nullable Integer loc, I symbol, int counterValue) {
+        return getSuccessor(loc, symbol, counterValue);
+    }
+
+    @Override
+    public Integer getInternalSuccessor(@Nullable Integer loc, I symbol, int counterValue) {
+        return getSuccessor(loc, symbol, counterValue);
+    }
+
+    @Override
+    public Integer getSuccessor(@Nullable Integer loc, I symbol, int counterValue) {
+        int symbolIndex = getAlphabet().getSymbolIndex(symbol);
+        return toLocation(step(fromLocation(loc), counterValue, symbolIndex));
+    }
+
+    @Override
+    public int getLocationId(Integer loc) {
+        return fromLocation(loc);
+    }
+
+    @Override
+    public boolean accepts(Iterable<? extends I> input) {
+        return computeSuffixOutput(Collections.emptyList(), input);
+    }
+
+    @Override
+    public Boolean computeSuffixOutput(Iterable<? extends I> prefix, Iterable<? extends I> suffix) {
+        int location = initialLocation;
+        int counterValue = 0;
+        for (I symbol : prefix) {
+            int symbolIndex = getAlphabet().getSymbolIndex(symbol);
+            location = step(location, counterValue, symbolIndex);
+            counterValue += signs[symbolIndex];
+        }
+        for (I symbol : suffix) {
+            int symbolIndex = getAlphabet().getSymbolIndex(symbol);
+            location = step(location, counterValue, symbolIndex);
+            counterValue += signs[symbolIndex];
+        }
+        return counterValue == 0 && isAcceptingLocation(location);
+    }
+
+    private static int fromLocation(@Nullable Integer loc) {
+        return loc == null ? SINK : loc;
+    }
+
+    @Nullable
+    private static Integer toLocation(int location) {
+        return location == SINK ? null : location;
+    }
+}
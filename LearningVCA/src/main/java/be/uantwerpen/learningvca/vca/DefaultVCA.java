@@ -207,6 +207,16 @@ public class DefaultVCA<I> extends AbstractVCA<Location, I>  {
         return loc.getReturnSuccessor(getAlphabet().getReturnSymbolIndex(symbol), counterValue);
     }
 
+    /**
+     * Compiles this VCA into an immutable VCA using flat transition tables.
+     * 
+     * Later modifications of this VCA are not reflected in the compiled VCA.
+     * @return The compiled VCA
+     */
+    public CompiledVCA<I> compile() {
+        return new CompiledVCA<>(this);
+    }
+
     @Override
     public int getLocationId(Location loc) {
         if (loc == null) {
@@ -0,0 +1,252 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.Nullable;
+
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+
+/**
+ * Decides the emptiness of a VCA (typically, a {@link ProductVCA}) by a forward exploration of its configurations.
+ * 
+ * The configurations reachable from the initial configuration are explored by a BFS, with the counter value bounded by a given maximum.
+ * Locations are numbered on the fly (the list of locations of the VCA is never built) and the explored configurations are stored in a hashed set.
+ * The exploration is either a BFS, which gives a shortest accepted word, or a search height by height, which gives an accepted word whose maximal counter value is minimal.
+ * 
+ * The exploration can be stopped by a cancellation flag, checked before each explored configuration, so that a check running in a cancelled task does not keep using its thread.
+ * The flag is needed because some executors (for instance, a {@link java.util.concurrent.ForkJoinPool}) do not interrupt the thread of a cancelled task.
+ * The exploration also stops if the current thread is interrupted.
+ * @author Gaëtan Staquet
+ */
+public final class EmptinessCheck {
+    private EmptinessCheck() {
+    }
+
+    /**
+     * Computes a shortest word accepted by the VCA whose counter values never exceed the given maximum.
+     * @param <L> The location type
+     * @param <I> The input alphabet type
+     * @param vca The VCA
+     * @param maxCounterValue The maximal counter value
+     * @return A shortest accepted word, or null if there is none
+     * @throws CancellationException If the current thread is interrupted during the exploration
+     */
+    @Nullable
+    public static <L, I> Word<I> findShortestAcceptedWord(VCA<L, I> vca, int maxCounterValue) {
+        return findShortestAcceptedWord(vca, maxCounterValue, () -> false);
+    }
+
+    /**
+     * Computes a shortest word accepted by the VCA whose counter values never exceed the given maximum, unless the search is cancelled.
+     * @param <L> The location type
+     * @param <I> The input alphabet type
+     * @param vca The VCA
+     * @param maxCounterValue The maximal counter value
+     * @param cancelled The cancellation flag
+     * @return A shortest accepted word, or null if there is none
+     * @throws CancellationException If the flag is raised or the current thread is interrupted during the exploration
+     */
+    @Nullable
+    public static <L, I> Word<I> findShortestAcceptedWord(VCA<L, I> vca, int maxCounterValue, BooleanSupplier cancelled) {
+        return new Search<>(vca, maxCounterValue, false, cancelled).run();
+    }
+
+    /**
+     * Computes an accepted word whose maximal counter value is minimal among all accepted words.
+     * 
+     * The configurations are explored height by height: every configuration reachable without exceeding the counter value h is explored before any configuration that requires h + 1.
+     * Within a height, the exploration is a BFS. The returned word is thus short but, unlike {@link #findShortestAcceptedWord(VCA, int)}, it is not guaranteed to be a shortest one.
+     * @param <L> The location type
+     * @param <I> The input alphabet type
+     * @param vca The VCA
+     * @param maxCounterValue The maximal counter value
+     * @return An accepted word of minimal height, or null if there is none
+     * @throws CancellationException If the current thread is interrupted during the exploration
+     */
+    @Nullable
+    public static <L, I> Word<I> findAcceptedWordWithMinimalHeight(VCA<L, I> vca, int maxCounterValue) {
+        return findAcceptedWordWithMinimalHeight(vca, maxCounterValue, () -> false);
+    }
+
+    /**
+     * Computes an accepted word whose maximal counter value is minimal among all accepted words, unless the search is cancelled.
+     * @param <L> The location type
+     * @param <I> The input alphabet type
+     * @param vca The VCA
+     * @param maxCounterValue The maximal counter value
+     * @param cancelled The cancellation flag
+     * @return An accepted word of minimal height, or null if there is none
+     * @throws CancellationException If the flag is raised or the current thread is interrupted during the exploration
+     */
+    @Nullable
+    public static <L, I> Word<I> findAcceptedWordWithMinimalHeight(VCA<L, I> vca, int maxCounterValue, BooleanSupplier cancelled) {
+        return new Search<>(vca, maxCounterValue, true, cancelled).run();
+    }
+
+    private static final class Search<L, I> {
+        private final VCA<L, I> vca;
+        private final VPDAlphabet<I> alphabet;
+        private final int[] signs;
+        private final int maxCounterValue;
+        private final boolean byHeight;
+        private final BooleanSupplier cancelled;
+
+        private final Map<L, Integer> locationIds = new HashMap<>();
+        private final List<L> locations = new ArrayList<>();
+        private final Set<Long> visited = new HashSet<>();
+
+        // The explored configurations, in BFS order. The i-th configuration was reached by reading symbols[i] from parents[i]
+        private int[] configurationLocations = new int[16];
+        private int[] configurationCounterValues = new int[16];
+        private int[] parents = new int[16];
+        private int[] symbols = new int[16];
+        private int numberOfConfigurations = 0;
+
+        Search(VCA<L, I> vca, int maxCounterValue, boolean byHeight, BooleanSupplier cancelled) {
+            this.vca = vca;
+            this.byHeight = byHeight;
+            this.cancelled = cancelled;
+            this.alphabet = vca.getAlphabet();
+            this.maxCounterValue = maxCounterValue;
+            this.signs = new int[alphabet.size()];
+            for (int i = 0 ; i < alphabet.size() ; i++) {
+                signs[i] = ComputeCounterValue.signOf(alphabet.getSymbol(i), alphabet);
+            }
+        }
+
+        Word<I> run() {
+            L initialLocation = vca.getInitialLocation();
+            if (initialLocation == null) {
+                return null;
+            }
+            add(initialLocation, 0, -1, -1);
+            if (vca.isAcceptingLocation(initialLocation)) {
+                return Word.epsilon();
+            }
+
+            // The configurations to explore at the current height and at the next height.
+            // When the search is not done by height, every configuration is explored at height 0
+            int[] queue = new int[] {0};
+            int queueSize = 1;
+            int[] nextQueue = new int[16];
+            int nextQueueSize = 0;
+            int height = 0;
+            while (queueSize != 0) {
+                for (int head = 0 ; head < queueSize ; head++) {
+                    if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException("EmptinessCheck: the exploration was cancelled");
+                    }
+                    int current = queue[head];
+                    L location = locations.get(configurationLocations[current]);
+                    int counterValue = configurationCounterValues[current];
+                    for (int symbolIndex = 0 ; symbolIndex < signs.length ; symbolIndex++) {
+                        int newCounterValue = counterValue + signs[symbolIndex];
+                        if (newCounterValue < 0 || newCounterValue > maxCounterValue) {
+                            continue;
+                        }
+                        L successor = vca.getSuccessor(location, alphabet.getSymbol(symbolIndex), counterValue);
+                        // Without successor, the run is in the sink and can not be accepted anymore
+                        if (successor == null || !add(successor, newCounterValue, current, symbolIndex)) {
+                            continue;
+                        }
+                        if (newCounterValue == 0 && vca.isAcceptingLocation(successor)) {
+                            return getWord(numberOfConfigurations - 1);
+                        }
+
+                        // A configuration with counter value h + 1 can not be reached with height h, so it is safe to mark it as explored now
+                        if (byHeight && newCounterValue > height) {
+                            if (nextQueueSize == nextQueue.length) {
+                                nextQueue = Arrays.copyOf(nextQueue, 2 * nextQueue.length);
+                            }
+                            nextQueue[nextQueueSize++] = numberOfConfigurations - 1;
+                        }
+                        else {
+                            if (queueSize == queue.length) {
+                                queue = Arrays.copyOf(queue, 2 * queue.length);
+                            }
+                            queue[queueSize++] = numberOfConfigurations - 1;
+                        }
+                    }
+                }
+
+                int[] swap = queue;
+                queue = nextQueue;
+                queueSize = nextQueueSize;
+                nextQueue = swap;
+                nextQueueSize = 0;
+                height++;
+            }
+
+            return null;
+        }
+
+        /**
+         * Adds a configuration, if it is not yet explored
+         * @return True iff the configuration was not yet explored
+         */
+        private boolean add(L location, int counterValue, int parent, int symbol) {
+            Integer locationId = locationIds.get(location);
+            if (locationId == null) {
+                locationId = locations.size();
+                locationIds.put(location, locationId);
+                locations.add(location);
+            }
+
+            long key = ((long) locationId << 32) | counterValue;
+            if (!visited.add(key)) {
+                return false;
+            }
+
+            if (numberOfConfigurations == parents.length) {
+                int newLength = 2 * parents.length;
+                configurationLocations = Arrays.copyOf(configurationLocations, newLength);
+                configurationCounterValues = Arrays.copyOf(configurationCounterValues, newLength);
+                parents = Arrays.copyOf(parents, newLength);
+                symbols = Arrays.copyOf(symbols, newLength);
+            }
+            configurationLocations[numberOfConfigurations] = locationId;
+            configurationCounterValues[numberOfConfigurations] = counterValue;
+            parents[numberOfConfigurations] = parent;
+            symbols[numberOfConfigurations] = symbol;
+            numberOfConfigurations++;
+            return true;
+        }
+
+        private Word<I> getWord(int configuration) {
+            List<I> word = new ArrayList<>();
+            for (int current = configuration ; parents[current] != -1 ; current = parents[current]) {
+                word.add(alphabet.getSymbol(symbols[current]));
+            }
+            Collections.reverse(word);
+            return Word.fromList(word);
+        }
+    }
+}
@@ -17,109 +17,234 @@
  */
 package be.uantwerpen.learningvca.vca;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-
-import net.automatalib.commons.util.Pair;
-import net.automatalib.words.Alphabet;
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import net.automatalib.automata.fsa.impl.compact.CompactDFA;
+import net.automatalib.words.VPDAlphabet;
 
 /**
  * Computes and stores the equivalence between states in a {@link VCA}.
  * 
- * The algorithm is an adaptation of the algorithm used to find equivalent states in a DFA (see HOPCROFT and ULLMAN, Introduction to Automata Theory).
+ * The states (location, counter value) with a counter value up to the threshold are encoded as ints, counter value by counter value, and the classes are computed by a {@link PartitionRefinement}.
+ * Transitions leaving the counter values [0, threshold] all go to a single extra state.
+ * 
+ * The threshold can be increased afterwards. The VCA is then not queried again and the refinement starts from the previous classes:
+ * only the blocks of the new counter values and of the previous highest counter value are used as splitters.
  * @param <L> The location type of the VCA
  * @param <I> The input alphabet type 
  */
 final class EquivalentStates<L, I> {
 
-    private final Table<State<L>, State<L>, Boolean> equivalentStates;
-    private final Table<State<L>, State<L>, List<Pair<State<L>, State<L>>>> lists;
-    private final List<State<L>> states;
+    private final VCA<L, I> vca;
+    private final List<L> locations;
+    private final Map<L, Integer> locationIndices;
+    private final int sinkIndex;
+    private final int numberOfLocations;
+    private final int m;
+    private final int alphabetSize;
+    private final int[] signs;
+    private final boolean[] acceptingLocations;
+    /**
+     * The successor of (location, min(counter value, m), symbol) is stored at (location * (m + 1) + min(counter value, m)) * |Sigma| + symbol
+     */
+    private final int[] locationSuccessors;
+
+    private int threshold;
+    private PartitionRefinement partition;
 
     public EquivalentStates(VCA<L, I> vca, int threshold) {
-        this.equivalentStates = HashBasedTable.create();
-        this.lists = HashBasedTable.create();
-        this.states = vca.getStates(threshold);
-
-        // We initialize the table
-        for (State<L> s1 : states) {
-            for (State<L> s2 : states) {
-                equivalentStates.put(s1, s2, true);
-                equivalentStates.put(s2, s1, true);
-                if (vca.isAccepting(s1) ^ vca.isAccepting(s2)) {
-                    markAsDistinct(s1, s2);
-                }
-                if (!s1.getCounterValue().equals(s2.getCounterValue())) {
-                    markAsDistinct(s1, s2);
+        this.vca = vca;
+        this.locations = vca.getLocations();
+        this.locationIndices = new HashMap<>();
+        for (L location : locations) {
+            locationIndices.put(location, locationIndices.size());
+        }
+        this.sinkIndex = locations.size();
+        this.numberOfLocations = sinkIndex + 1;
+        this.m = vca.getThreshold();
+
+        VPDAlphabet<I> alphabet = vca.getAlphabet();
+        this.alphabetSize = alphabet.size();
+        this.signs = new int[alphabetSize];
+        for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+            signs[symbolIndex] = ComputeCounterValue.signOf(alphabet.getSymbol(symbolIndex), alphabet);
+        }
+
+        this.acceptingLocations = new boolean[numberOfLocations];
+        this.locationSuccessors = new int[numberOfLocations * (m + 1) * alphabetSize];
+        for (int locationIndex = 0 ; locationIndex < numberOfLocations ; locationIndex++) {
+            L location = locationIndex == sinkIndex ? null : locations.get(locationIndex);
+            acceptingLocations[locationIndex] = location != null && vca.isAcceptingLocation(location);
+            for (int counterValue = 0 ; counterValue <= m ; counterValue++) {
+                for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+                    L target = location == null ? null : vca.getSuccessor(location, alphabet.getSymbol(symbolIndex), counterValue);
+                    locationSuccessors[(locationIndex * (m + 1) + counterValue) * alphabetSize + symbolIndex] = target == null ? sinkIndex : locationIndices.get(target);
                 }
             }
         }
 
-        Alphabet<I> alphabet = vca.getAlphabet();
-
-        // We seek the distinct states
-        for (State<L> s1 : states) {
-            for (State<L> s2 : states) {
-                if (vca.isAccepting(s1) == vca.isAccepting(s2)) {
-                    boolean witness = false;
-                    for (I symbol : alphabet) {
-                        State<L> newS1 = vca.getTransition(s1, symbol);
-                        State<L> newS2 = vca.getTransition(s2, symbol);
-
-                        if (newS1.getCounterValue().isBetween0AndT(threshold) && newS2.getCounterValue().isBetween0AndT(threshold)) {
-                            if (!equivalentStates.get(newS1, newS2)) {
-                                markAsDistinct(s1, s2);
-                                witness = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (!witness) {
-                        for (I symbol : alphabet) {
-                            State<L> newS1 = vca.getTransition(s1, symbol);
-                            State<L> newS2 = vca.getTransition(s2, symbol);
-
-                            if (!Objects.equals(newS1, newS2) && newS1.getCounterValue().isBetween0AndT(threshold) && newS2.getCounterValue().isBetween0AndT(threshold)) {
-                                if (!lists.contains(newS1, newS2)) {
-                                    lists.put(newS1, newS2, new ArrayList<>());
-                                }
-                                lists.get(newS1, newS2).add(Pair.of(s1, s2));
-                            }
-                        }
-                    }
+        this.threshold = -1;
+        increaseThreshold(threshold);
+    }
+
+    /**
+     * Recomputes the classes for a larger threshold.
+     * 
+     * The classes for the new threshold refine the previous classes, so the previous partition is used as the initial partition.
+     * The counter values of the states of a class are all the same, so the previous partition stays stable with respect to every previous class,
+     * except the classes of the previous threshold (they gain predecessors by the return symbols) and the states leaving the range (they lose the predecessors by the call symbols).
+     * Only these classes and the classes of the new counter values are used as splitters.
+     * The transition arrays are still rebuilt, which takes a linear time in the number of states.
+     * @param newThreshold The new threshold. It must not be smaller than the current threshold
+     */
+    public void increaseThreshold(int newThreshold) {
+        if (newThreshold < threshold) {
+            throw new IllegalArgumentException("EquivalentStates: the threshold can not decrease. Current threshold: " + threshold + "; received: " + newThreshold);
+        }
+        if (newThreshold == threshold) {
+            return;
+        }
+
+        int outOfRange = numberOfLocations * (newThreshold + 1);
+        int numberOfStates = outOfRange + 1;
+        int[] successors = new int[numberOfStates * alphabetSize];
+        int[] initialClasses = new int[numberOfStates];
+        // Without previous partition, every state is a splitter
+        boolean[] splitters = new boolean[numberOfStates];
+        int previousClasses = partition == null ? 0 : partition.numberOfClasses();
+
+        for (int counterValue = 0 ; counterValue <= newThreshold ; counterValue++) {
+            for (int locationIndex = 0 ; locationIndex < numberOfLocations ; locationIndex++) {
+                int state = encode(locationIndex, counterValue);
+                if (counterValue <= threshold) {
+                    initialClasses[state] = partition.getClassId(state);
+                    splitters[state] = counterValue == threshold;
+                }
+                else {
+                    splitters[state] = true;
+                    boolean accepting = counterValue == 0 && acceptingLocations[locationIndex];
+                    initialClasses[state] = previousClasses + 2 * counterValue + (accepting ? 1 : 0);
+                }
+
+                for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+                    int successor = getSuccessor(locationIndex, counterValue, symbolIndex, newThreshold);
+                    successors[state * alphabetSize + symbolIndex] = successor == -1 ? outOfRange : successor;
                 }
             }
         }
+
+        initialClasses[outOfRange] = -1;
+        splitters[outOfRange] = true;
+        for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+            successors[outOfRange * alphabetSize + symbolIndex] = outOfRange;
+        }
+
+        if (partition == null) {
+            this.partition = new PartitionRefinement(numberOfStates, alphabetSize, successors, initialClasses);
+        }
+        else {
+            this.partition = new PartitionRefinement(numberOfStates, alphabetSize, successors, initialClasses, splitters);
+        }
+        this.threshold = newThreshold;
     }
-    
-    private void markAsDistinct(State<L> s1, State<L> s2) {
-        equivalentStates.put(s1, s2, false);
-        equivalentStates.put(s2, s1, false);
-        if (lists.contains(s1, s2)) {
-            List<Pair<State<L>, State<L>>> list = lists.get(s1, s2);
-            // For every pair in the list, we remove the pair from the list and recursively mark it
-            while (list.size() != 0) {
-                Pair<State<L>, State<L>> pair = list.remove(0);
-                markAsDistinct(pair.getFirst(), pair.getSecond());
-            }
-            lists.remove(s1, s2);
+
+    private int encode(int locationIndex, int counterValue) {
+        return counterValue * numberOfLocations + locationIndex;
+    }
+
+    /**
+     * Gets the encoded successor of an encoded state
+     * @return The successor, or -1 if the counter value leaves [0, threshold]
+     */
+    private int getSuccessor(int locationIndex, int counterValue, int symbolIndex, int threshold) {
+        int newCounterValue = counterValue + signs[symbolIndex];
+        if (newCounterValue < 0 || newCounterValue > threshold) {
+            return -1;
         }
-        if (lists.contains(s2, s1)) {
-            List<Pair<State<L>, State<L>>> list = lists.get(s2, s1);
-            while (list.size() != 0) {
-                Pair<State<L>, State<L>> pair = list.remove(0);
-                markAsDistinct(pair.getFirst(), pair.getSecond());
-            }
-            lists.remove(s2, s1);
+        int target = locationSuccessors[(locationIndex * (m + 1) + Math.min(counterValue, m)) * alphabetSize + symbolIndex];
+        return encode(target, newCounterValue);
+    }
+
+    /**
+     * @return The current threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Gets the id of the equivalence class of a state.
+     * 
+     * Two states are equivalent iff they have the same class id.
+     * @param state The state. Its counter value must be between 0 and the threshold
+     * @return The class id
+     */
+    public int getClassId(State<L> state) {
+        int counterValue = state.getCounterValue().toInt();
+        if (counterValue < 0 || counterValue > threshold) {
+            throw new IllegalArgumentException("EquivalentStates: the counter value of the state must be between 0 and " + threshold + ". Received: " + state);
         }
+        int locationIndex = state.isSink() ? sinkIndex : locationIndices.get(state.getLocation());
+        return partition.getClassId(encode(locationIndex, counterValue));
+    }
+
+    /**
+     * @return The number of equivalence classes
+     */
+    public int numberOfClasses() {
+        return partition.numberOfClasses();
     }
 
     public boolean areEquivalent(State<L> s1, State<L> s2) {
-        return equivalentStates.get(s1, s2);
+        return getClassId(s1) == getClassId(s2);
+    }
+
+    /**
+     * Constructs the behavior graph limited to the current threshold.
+     * 
+     * The graph is explored by a BFS from the initial state and each reached state is mapped to its class in O(1).
+     * @return The limited behavior graph
+     */
+    public CompactDFA<I> toLimitedBehaviorGraph() {
+        VPDAlphabet<I> alphabet = vca.getAlphabet();
+        CompactDFA<I> behaviorGraph = new CompactDFA<>(alphabet);
+
+        // The state in the behavior graph of each equivalence class, or -1 if the class is not yet reached
+        int[] representatives = new int[partition.numberOfClasses()];
+        Arrays.fill(representatives, -1);
+
+        int initialLocation = locationIndices.get(vca.getInitialLocation());
+        int initialState = encode(initialLocation, 0);
+        representatives[partition.getClassId(initialState)] = behaviorGraph.addInitialState(acceptingLocations[initialLocation]);
+
+        int[] queue = new int[partition.numberOfClasses()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = initialState;
+        while (head != tail) {
+            int state = queue[head++];
+            int locationIndex = state % numberOfLocations;
+            int counterValue = state / numberOfLocations;
+            int stateBG = representatives[partition.getClassId(state)];
+            for (int symbolIndex = 0 ; symbolIndex < alphabetSize ; symbolIndex++) {
+                int successor = getSuccessor(locationIndex, counterValue, symbolIndex, threshold);
+                if (successor == -1) {
+                    continue;
+                }
+
+                int classId = partition.getClassId(successor);
+                if (representatives[classId] == -1) {
+                    boolean accepting = successor < numberOfLocations && acceptingLocations[successor];
+                    representatives[classId] = behaviorGraph.addState(accepting);
+                    queue[tail++] = successor;
+                }
+                behaviorGraph.setTransition(stateBG, symbolIndex, representatives[classId]);
+            }
+        }
+        return behaviorGraph;
     }
-}
\ No newline at end of file
+}
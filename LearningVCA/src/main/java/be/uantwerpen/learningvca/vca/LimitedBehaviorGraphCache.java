@@ -0,0 +1,76 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.automatalib.automata.fsa.DFA;
+
+/**
+ * Computes and stores the limited behavior graphs of a fixed VCA.
+ * 
+ * Each graph is computed once per threshold. When the threshold increases, the equivalence classes of the previous threshold are refined instead of recomputed from scratch:
+ * only the classes touched by the new counter values are used as splitters (see {@link EquivalentStates#increaseThreshold(int)}).
+ * A threshold smaller than the largest one already used is computed from scratch.
+ * 
+ * Every computed graph is kept until the cache is discarded, so the memory grows with the number of distinct thresholds requested.
+ * This is meant for the learner, which only asks for a few increasing thresholds.
+ * The VCA must not be modified after the cache is created.
+ * @param <I> The input alphabet type
+ * @author Gaëtan Staquet
+ */
+public final class LimitedBehaviorGraphCache<I> {
+    private final VCA<?, I> vca;
+    private final EquivalentStates<?, I> equivalentStates;
+    private final Map<Integer, DFA<?, I>> behaviorGraphs;
+
+    /**
+     * Creates the cache.
+     * @param <L> The location type of the VCA
+     * @param vca The VCA
+     */
+    public <L> LimitedBehaviorGraphCache(VCA<L, I> vca) {
+        this.vca = vca;
+        this.equivalentStates = new EquivalentStates<>(vca, 0);
+        this.behaviorGraphs = new HashMap<>();
+    }
+
+    /**
+     * Gets the behavior graph of the VCA limited to the given threshold.
+     * @param threshold The threshold
+     * @return The limited behavior graph
+     */
+    public DFA<?, I> getLimitedBehaviorGraph(int threshold) {
+        DFA<?, I> behaviorGraph = behaviorGraphs.get(threshold);
+        if (behaviorGraph != null) {
+            return behaviorGraph;
+        }
+
+        if (threshold >= equivalentStates.getThreshold()) {
+            equivalentStates.increaseThreshold(threshold);
+            behaviorGraph = equivalentStates.toLimitedBehaviorGraph();
+        }
+        else {
+            // The classes can not be coarsened, so we start over
+            behaviorGraph = vca.toLimitedBehaviorGraph(threshold);
+        }
+        behaviorGraphs.put(threshold, behaviorGraph);
+        return behaviorGraph;
+    }
+}
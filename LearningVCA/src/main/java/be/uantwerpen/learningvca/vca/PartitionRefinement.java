@@ -0,0 +1,279 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the coarsest partition of a deterministic, complete transition system that respects a given initial partition.
+ * 
+ * States and symbols are ints.
+ * The successor of a state s by a symbol a is stored in successors[s * numberOfSymbols + a].
+ * The algorithm is Hopcroft's partition refinement: the blocks are contiguous segments of a single array and, when a block is split, only the smaller half is added to the worklist (unless the block is already waiting to be processed).
+ * It runs in O(k n log n) time and O(k n) memory, where n is the number of states and k the number of symbols.
+ * @author Gaëtan Staquet
+ */
+public final class PartitionRefinement {
+    private final int numberOfStates;
+    private final int numberOfSymbols;
+
+    // Predecessors of state t by symbol a are predecessors[predecessorsStart[a * n + t] .. predecessorsStart[a * n + t + 1]]
+    private final int[] predecessorsStart;
+    private final int[] predecessors;
+
+    // The states, grouped by block
+    private final int[] elements;
+    // The position of each state in elements
+    private final int[] positions;
+    // The block of each state
+    private final int[] blockOf;
+
+    // Block b is elements[blockStart[b] .. blockEnd[b]]. The marked states of b are elements[blockStart[b] .. blockMarked[b]]
+    private final int[] blockStart;
+    private final int[] blockEnd;
+    private final int[] blockMarked;
+    private int numberOfBlocks;
+
+    private final int[] worklist;
+    private final boolean[] inWorklist;
+    private int worklistSize;
+
+    private final int[] touched;
+    private int numberOfTouched;
+
+    /**
+     * Refines the initial partition.
+     * @param numberOfStates The number of states n
+     * @param numberOfSymbols The number of symbols k
+     * @param successors The transition function, of size n * k
+     * @param initialClasses The class of each state in the initial partition. Two states are in the same initial block iff they have the same value
+     */
+    public PartitionRefinement(int numberOfStates, int numberOfSymbols, int[] successors, int[] initialClasses) {
+        this(numberOfStates, numberOfSymbols, successors, initialClasses, null);
+    }
+
+    /**
+     * Refines an initial partition that is already stable with respect to some of its blocks.
+     * 
+     * Only the initial blocks containing a marked state are used as splitters at the start.
+     * The initial partition must be stable with respect to every other initial block, that is, for every symbol, the states of a block either all have their successor in that block, or none does.
+     * This is typically the case when states are added to a partition that was already refined: only the new blocks and the blocks whose predecessors changed must be marked.
+     * The work done by the refinement then depends on the marked blocks and not on the whole partition.
+     * @param numberOfStates The number of states n
+     * @param numberOfSymbols The number of symbols k
+     * @param successors The transition function, of size n * k
+     * @param initialClasses The class of each state in the initial partition. Two states are in the same initial block iff they have the same value
+     * @param splitters The marked states, or null to use every initial block but the largest one as a splitter
+     */
+    public PartitionRefinement(int numberOfStates, int numberOfSymbols, int[] successors, int[] initialClasses, boolean[] splitters) {
+        if (successors.length != numberOfStates * numberOfSymbols) {
+            throw new IllegalArgumentException("PartitionRefinement: the transition function must have " + (numberOfStates * numberOfSymbols) + " entries. Received: " + successors.length);
+        }
+        if (initialClasses.length != numberOfStates) {
+            throw new IllegalArgumentException("PartitionRefinement: every state must have an initial class. Received: " + initialClasses.length + " classes for " + numberOfStates + " states");
+        }
+        if (splitters != null && splitters.length != numberOfStates) {
+            throw new IllegalArgumentException("PartitionRefinement: every state must be marked or not. Received: " + splitters.length + " marks for " + numberOfStates + " states");
+        }
+        this.numberOfStates = numberOfStates;
+        this.numberOfSymbols = numberOfSymbols;
+
+        this.predecessorsStart = new int[numberOfStates * numberOfSymbols + 1];
+        this.predecessors = new int[numberOfStates * numberOfSymbols];
+        this.elements = new int[numberOfStates];
+        this.positions = new int[numberOfStates];
+        this.blockOf = new int[numberOfStates];
+        this.blockStart = new int[numberOfStates];
+        this.blockEnd = new int[numberOfStates];
+        this.blockMarked = new int[numberOfStates];
+        this.worklist = new int[numberOfStates];
+        this.inWorklist = new boolean[numberOfStates];
+        this.touched = new int[numberOfStates];
+
+        computePredecessors(successors);
+        createInitialPartition(initialClasses, splitters);
+        refine();
+    }
+
+    /**
+     * @param state The state
+     * @return The id of the block of the state, between 0 (inclusive) and {@link #numberOfClasses()} (exclusive)
+     */
+    public int getClassId(int state) {
+        return blockOf[state];
+    }
+
+    /**
+     * @return The number of blocks in the final partition
+     */
+    public int numberOfClasses() {
+        return numberOfBlocks;
+    }
+
+    private void computePredecessors(int[] successors) {
+        // Counting sort of the transitions by (symbol, target)
+        for (int state = 0 ; state < numberOfStates ; state++) {
+            for (int symbol = 0 ; symbol < numberOfSymbols ; symbol++) {
+                int target = successors[state * numberOfSymbols + symbol];
+                if (target < 0 || target >= numberOfStates) {
+                    throw new IllegalArgumentException("PartitionRefinement: the transition function must be complete. State " + state + " has successor " + target + " for symbol " + symbol);
+                }
+                predecessorsStart[symbol * numberOfStates + target + 1]++;
+            }
+        }
+        for (int i = 1 ; i < predecessorsStart.length ; i++) {
+            predecessorsStart[i] += predecessorsStart[i - 1];
+        }
+        int[] next = new int[predecessorsStart.length - 1];
+        System.arraycopy(predecessorsStart, 0, next, 0, next.length);
+        for (int state = 0 ; state < numberOfStates ; state++) {
+            for (int symbol = 0 ; symbol < numberOfSymbols ; symbol++) {
+                int target = successors[state * numberOfSymbols + symbol];
+                predecessors[next[symbol * numberOfStates + target]++] = state;
+            }
+        }
+    }
+
+    private void createInitialPartition(int[] initialClasses, boolean[] splitters) {
+        Map<Integer, Integer> classToBlock = new HashMap<>();
+        int[] sizes = new int[numberOfStates];
+        for (int state = 0 ; state < numberOfStates ; state++) {
+            Integer block = classToBlock.computeIfAbsent(initialClasses[state], c -> classToBlock.size());
+            blockOf[state] = block;
+            sizes[block]++;
+        }
+        numberOfBlocks = classToBlock.size();
+
+        int start = 0;
+        for (int block = 0 ; block < numberOfBlocks ; block++) {
+            blockStart[block] = start;
+            blockMarked[block] = start;
+            blockEnd[block] = start;
+            start += sizes[block];
+        }
+        for (int state = 0 ; state < numberOfStates ; state++) {
+            int block = blockOf[state];
+            positions[state] = blockEnd[block];
+            elements[blockEnd[block]++] = state;
+        }
+
+        if (splitters != null) {
+            for (int state = 0 ; state < numberOfStates ; state++) {
+                if (splitters[state] && !inWorklist[blockOf[state]]) {
+                    addToWorklist(blockOf[state]);
+                }
+            }
+            return;
+        }
+
+        // Every block but the largest one must be used as a splitter
+        int largest = 0;
+        for (int block = 1 ; block < numberOfBlocks ; block++) {
+            if (size(block) > size(largest)) {
+                largest = block;
+            }
+        }
+        for (int block = 0 ; block < numberOfBlocks ; block++) {
+            if (block != largest) {
+                addToWorklist(block);
+            }
+        }
+    }
+
+    private void refine() {
+        int[] splitter = new int[numberOfStates];
+        while (worklistSize != 0) {
+            int block = worklist[--worklistSize];
+            inWorklist[block] = false;
+
+            // The block may be split while we use it, so we copy its states
+            int splitterSize = size(block);
+            System.arraycopy(elements, blockStart[block], splitter, 0, splitterSize);
+
+            for (int symbol = 0 ; symbol < numberOfSymbols ; symbol++) {
+                for (int i = 0 ; i < splitterSize ; i++) {
+                    int index = symbol * numberOfStates + splitter[i];
+                    for (int j = predecessorsStart[index] ; j < predecessorsStart[index + 1] ; j++) {
+                        mark(predecessors[j]);
+                    }
+                }
+                splitTouchedBlocks();
+            }
+        }
+    }
+
+    private void mark(int state) {
+        int block = blockOf[state];
+        int position = positions[state];
+        int marked = blockMarked[block];
+        if (position < marked) {
+            return;
+        }
+        if (marked == blockStart[block]) {
+            touched[numberOfTouched++] = block;
+        }
+
+        // We swap the state with the first unmarked state of its block
+        int other = elements[marked];
+        elements[marked] = state;
+        positions[state] = marked;
+        elements[position] = other;
+        positions[other] = position;
+        blockMarked[block]++;
+    }
+
+    private void splitTouchedBlocks() {
+        for (int i = 0 ; i < numberOfTouched ; i++) {
+            int block = touched[i];
+            if (blockMarked[block] == blockEnd[block]) {
+                // Every state is marked: nothing to split
+                blockMarked[block] = blockStart[block];
+                continue;
+            }
+
+            // The marked states form the new block
+            int newBlock = numberOfBlocks++;
+            blockStart[newBlock] = blockStart[block];
+            blockEnd[newBlock] = blockMarked[block];
+            blockMarked[newBlock] = blockStart[newBlock];
+            blockStart[block] = blockEnd[newBlock];
+            blockMarked[block] = blockStart[block];
+            for (int j = blockStart[newBlock] ; j < blockEnd[newBlock] ; j++) {
+                blockOf[elements[j]] = newBlock;
+            }
+
+            if (inWorklist[block] || size(newBlock) <= size(block)) {
+                addToWorklist(newBlock);
+            }
+            else {
+                addToWorklist(block);
+            }
+        }
+        numberOfTouched = 0;
+    }
+
+    private void addToWorklist(int block) {
+        worklist[worklistSize++] = block;
+        inWorklist[block] = true;
+    }
+
+    private int size(int block) {
+        return blockEnd[block] - blockStart[block];
+    }
+}
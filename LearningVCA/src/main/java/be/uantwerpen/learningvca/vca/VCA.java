@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -34,8 +33,6 @@ import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import com.google.common.collect.Iterables;
-
 import be.uantwerpen.learningvca.util.ComputeCounterValue;
 import net.automatalib.automata.concepts.SuffixOutput;
 import net.automatalib.automata.fsa.DFA;
@@ -112,10 +109,48 @@ public interface VCA<L, I> extends DeterministicAcceptorTS<State<L>, I>, SuffixO
      */
     int getThreshold();
 
+    @Override
+    default boolean accepts(Iterable<? extends I> input) {
+        return computeSuffixOutput(Collections.emptyList(), input);
+    }
+
+    /**
+     * Decides whether the concatenation of the prefix and the suffix is accepted.
+     * 
+     * Unlike {@link #getState(Iterable)}, the run only keeps the current location and the counter value as an int.
+     * So, no configuration is created while reading the word.
+     */
     @Override
     default Boolean computeSuffixOutput(Iterable<? extends I> prefix, Iterable<? extends I> suffix) {
-        State<L> state =  getState(Iterables.concat(prefix, suffix));
-        return state != null && isAccepting(state);
+        VPDAlphabet<I> alphabet = getAlphabet();
+        L location = getInitialLocation();
+        int counterValue = 0;
+        for (I symbol : prefix) {
+            location = readSymbol(location, symbol, counterValue);
+            counterValue += ComputeCounterValue.signOf(symbol, alphabet);
+        }
+        for (I symbol : suffix) {
+            location = readSymbol(location, symbol, counterValue);
+            counterValue += ComputeCounterValue.signOf(symbol, alphabet);
+        }
+        return counterValue == 0 && location != null && isAcceptingLocation(location);
+    }
+
+    /**
+     * Reads one symbol during a run.
+     * 
+     * Once the sink (null) is reached, or if the counter value is negative, the run stays in the sink.
+     * @param location The current location, or null
+     * @param symbol The symbol
+     * @param counterValue The current counter value
+     * @return The next location, or null
+     */
+    @Nullable
+    private L readSymbol(@Nullable L location, I symbol, int counterValue) {
+        if (location == null || counterValue < 0) {
+            return null;
+        }
+        return getSuccessor(location, symbol, counterValue);
     }
 
     @Override
@@ -233,70 +268,14 @@ public interface VCA<L, I> extends DeterministicAcceptorTS<State<L>, I>, SuffixO
     }
 
     /**
-     * Computes an accepted word by this VCA.
+     * Computes a shortest word accepted by this VCA.
+     * 
+     * The counter values are bounded by size() + getThreshold(). See {@link EmptinessCheck}.
      * @return An accepted word, or null
      */
     @Nullable
     default Word<I> getAcceptedWord() {
-        List<Pair<State<L>, Word<I>>> states = new ArrayList<>();
-
-        // We initialize at the accepting configurations
-        for (L l : getAcceptingLocations()) {
-            State<L> state = new State<>(l, new CounterValue(0));
-            if (getInitialState().equals(state)) {
-                return Word.epsilon();
-            }
-            states.add(Pair.of(state, Word.epsilon()));
-        }
-
-        List<Pair<State<L>, Word<I>>> frontier = new LinkedList<>();
-        frontier.addAll(states);
-
-        // We compute the set of the predecessors of the configurations until:
-        //      - we reach a fix point; or
-        //      - we reach the initial configuration
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            List<Pair<State<L>, Word<I>>> newFrontier = new LinkedList<>();
-
-            for (Pair<State<L>, Word<I>> pair : frontier) {
-                State<L> state = pair.getFirst();
-                Word<I> word = pair.getSecond();
-                for (Pair<State<L>, I> p : getPredecessors(state)) {
-                    State<L> predecessor = p.getFirst();
-                    I symbol = p.getSecond();
-                    Word<I> newWord = word.prepend(symbol);
-
-                    if (getInitialState().equals(predecessor)) {
-                        return newWord;
-                    }
-                    if (!predecessor.getCounterValue().isBetween0AndT(size() + getThreshold())) {
-                        continue;
-                    }
-
-                    // We don't want to go back in an already explored state
-                    // Otherwise, we would have a never-ending loop
-                    // This is correct, since we are looking for one accepted.
-                    // So, going back to an already seen state is a waste of time
-                    boolean expand = states.stream().
-                        map(pa -> pa.getFirst()).
-                        filter(s -> Objects.equals(s, predecessor)).
-                        count() == 0
-                    ;
-
-                    if (expand) {
-                        changed = true;
-                        states.add(Pair.of(predecessor, newWord));
-                        newFrontier.add(Pair.of(predecessor, newWord));
-                    }
-                }
-            }
-        
-            frontier = newFrontier;
-        }
-
-        return null;
+        return EmptinessCheck.findShortestAcceptedWord(this, size() + getThreshold());
     }
 
     @Override
@@ -33,15 +33,13 @@ import net.automatalib.words.impl.DefaultVPDAlphabet;
 
 public class DescriptionToVCATest {
 
-    @Test
-    public void descriptionToVCA() {
-        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList(), Arrays.asList('a'), Arrays.asList('b'));
-        TauMapping<Character> tau0 = new TauMapping<>(3);
+    private Description<Character> createDescription(VPDAlphabet<Character> alphabet) {
+        TauMapping.Builder<Character> tau0 = new TauMapping.Builder<>(alphabet, 3);
         tau0.addTransition(1, 'a', 1);
         tau0.addTransition(2, 'a', 3);
         tau0.addTransition(3, 'a', 3);
 
-        TauMapping<Character> tau1 = new TauMapping<>(3);
+        TauMapping.Builder<Character> tau1 = new TauMapping.Builder<>(alphabet, 3);
         tau1.addTransition(1, 'a', 1);
         tau1.addTransition(1, 'b', 2);
         tau1.addTransition(2, 'a', 3);
@@ -50,13 +48,14 @@ public class DescriptionToVCATest {
         tau1.addTransition(3, 'b', 3);
 
         Description<Character> description = new Description<>(1, 1, 3);
-        description.addTauMappings(Arrays.asList(tau0, tau1));
+        description.addTauMappings(Arrays.asList(tau0.build(), tau1.build()));
         description.setInitialState(0, 1);
         description.addAcceptingState(0, 1);
         description.addAcceptingState(0, 2);
+        return description;
+    }
 
-        VCA<?, Character> vca = description.toVCA(alphabet);
-
+    private void checkLanguage(VCA<?, Character> vca) {
         assertEquals(3, vca.size());
 
         assertTrue(vca.accepts(Arrays.asList()));
@@ -71,15 +70,34 @@ public class DescriptionToVCATest {
         assertFalse(vca.accepts(Arrays.asList('b')));
     }
 
+    @Test
+    public void descriptionToVCA() {
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList(), Arrays.asList('a'), Arrays.asList('b'));
+        checkLanguage(createDescription(alphabet).toVCA(alphabet));
+    }
+
+    @Test
+    public void testOtherAlphabet() {
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList(), Arrays.asList('a'), Arrays.asList('b'));
+        // The internal symbol shifts the indices of 'a' and 'b'
+        VPDAlphabet<Character> otherAlphabet = new DefaultVPDAlphabet<>(Arrays.asList('c'), Arrays.asList('a'), Arrays.asList('b'));
+
+        VCA<?, Character> vca = createDescription(alphabet).toVCA(otherAlphabet);
+        checkLanguage(vca);
+        assertFalse(vca.accepts(Arrays.asList('c')));
+        assertFalse(vca.accepts(Arrays.asList('a', 'c', 'b')));
+    }
+
     // This test comes from a description from the execution
     @Test
     public void exampleFromExecution() {
-        TauMapping<Character> t0 = new TauMapping<>(3);
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Collections.emptyList(), Arrays.asList('a'), Arrays.asList('b'));
+        TauMapping.Builder<Character> t0 = new TauMapping.Builder<>(alphabet, 3);
         t0.addTransition(1, 'a', 1);
         t0.addTransition(2, 'a', 2);
         t0.addTransition(3, 'a', 2);
 
-        TauMapping<Character> t1 = new TauMapping<>(3);
+        TauMapping.Builder<Character> t1 = new TauMapping.Builder<>(alphabet, 3);
         t1.addTransition(1, 'a', 1);
         t1.addTransition(1, 'b', 2);
         t1.addTransition(2, 'a', 2);
@@ -87,7 +105,7 @@ public class DescriptionToVCATest {
         t1.addTransition(3, 'a', 2);
         t1.addTransition(3, 'b', 2);
 
-        TauMapping<Character> t2 = new TauMapping<>(3);
+        TauMapping.Builder<Character> t2 = new TauMapping.Builder<>(alphabet, 3);
         t2.addTransition(1, 'a', 1);
         t2.addTransition(1, 'b', 3);
         t2.addTransition(2, 'a', 2);
@@ -96,12 +114,12 @@ public class DescriptionToVCATest {
         t2.addTransition(3, 'b', 3);
 
         Description<Character> description = new Description<>(2, 1, 3);
-        description.addTauMappings(Arrays.asList(t0, t1, t2));
+        description.addTauMappings(Arrays.asList(t0.build(), t1.build(), t2.build()));
         description.setInitialState(0, 1);
         description.addAcceptingState(0, 1);
         description.addAcceptingState(0, 2);
 
-        VCA<?, Character> vca = description.toVCA(new DefaultVPDAlphabet<>(Collections.emptyList(), Arrays.asList('a'), Arrays.asList('b')));
+        VCA<?, Character> vca = description.toVCA(alphabet);
 
         assertTrue(vca.accepts(Word.epsilon()));
         for (int i = 1 ; i <= 100 ; i++) {
@@ -139,7 +157,8 @@ public class DescriptionToVCATest {
     @Test
     public void descriptionOfRegular() {
         // A regular language implies that offset = 1 and period = 0
-        TauMapping<Character> t0 = new TauMapping<>(4);
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList('a', 'b'), Collections.emptyList(), Collections.emptyList());
+        TauMapping.Builder<Character> t0 = new TauMapping.Builder<>(alphabet, 4);
         t0.addTransition(1, (Character)'a', 2);
         t0.addTransition(1, (Character)'b', 4);
         t0.addTransition(2, (Character)'a', 2);
@@ -150,10 +169,10 @@ public class DescriptionToVCATest {
         t0.addTransition(4, (Character)'b', 4);
 
         Description<Character> description = new Description<>(1, 0, 4);
-        description.addTauMappings(Arrays.asList(t0));
+        description.addTauMappings(Arrays.asList(t0.build()));
         description.addAcceptingState(0, 3);
         description.setInitialState(0, 1);
-        VCA<?, Character> vca = description.toVCA(new DefaultVPDAlphabet<>(Arrays.asList('a', 'b'), Collections.emptyList(), Collections.emptyList()));
+        VCA<?, Character> vca = description.toVCA(alphabet);
         assertTrue(vca.accepts(Word.fromString("aabbb")));
         assertTrue(vca.accepts(Word.fromString("ab")));
         assertFalse(vca.accepts(Word.fromString("aba")));
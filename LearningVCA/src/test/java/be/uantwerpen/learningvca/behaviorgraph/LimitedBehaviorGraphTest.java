@@ -22,13 +22,26 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 import org.testng.annotations.Test;
 
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
+import be.uantwerpen.learningvca.util.ComputeCounterValue;
+import be.uantwerpen.learningvca.vca.ProductVCA;
 import be.uantwerpen.learningvca.vca.VCA;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.ts.acceptors.AcceptanceCombiner;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 import net.automatalib.words.impl.DefaultVPDAlphabet;
@@ -212,6 +225,137 @@ public class LimitedBehaviorGraphTest {
         assertTrue(vca.accepts(Word.fromString("aaabbb")));
     }
 
+    @Test
+    public void testPeriodicDescriptionIterator() {
+        for (int threshold = 0 ; threshold <= 4 ; threshold++) {
+            LimitedBehaviorGraph<Character> behaviorGraph = getWithoutInternals(threshold);
+            List<Description<Character>> descriptions = behaviorGraph.getPeriodicDescriptions();
+            List<Description<Character>> lazyDescriptions = new ArrayList<>();
+            behaviorGraph.getPeriodicDescriptionIterator().forEachRemaining(lazyDescriptions::add);
+
+            // The iterator gives the same descriptions, maybe in another order
+            Set<List<Integer>> candidates = new HashSet<>();
+            descriptions.forEach(description -> candidates.add(Arrays.asList(description.getOffset(), description.getPeriod())));
+            Set<List<Integer>> lazyCandidates = new HashSet<>();
+            lazyDescriptions.forEach(description -> lazyCandidates.add(Arrays.asList(description.getOffset(), description.getPeriod())));
+            assertEquals(lazyDescriptions.size(), descriptions.size());
+            assertEquals(lazyCandidates, candidates);
+
+            // The lazy descriptions share their mappings between candidates, so we check that they build the same descriptions
+            checkSameDescriptions(descriptions, lazyDescriptions, getAlphabetWithoutInternals());
+            LimitedBehaviorGraph<Character> withInternals = getWithInternals(threshold);
+            List<Description<Character>> lazyWithInternals = new ArrayList<>();
+            withInternals.getPeriodicDescriptionIterator().forEachRemaining(lazyWithInternals::add);
+            checkSameDescriptions(withInternals.getPeriodicDescriptions(), lazyWithInternals, getAlphabetWithInternals());
+        }
+
+        for (long seed = 1 ; seed <= 10 ; seed++) {
+            VCA<?, String> vca = new RandomVCAGenerator(seed).generate(4, 1, 1, 1, 1, 0.6);
+            for (int threshold = 2 ; threshold <= 6 ; threshold++) {
+                LimitedBehaviorGraph<String> behaviorGraph = toLimitedBehaviorGraph(vca, threshold);
+                List<Description<String>> lazyDescriptions = new ArrayList<>();
+                behaviorGraph.getPeriodicDescriptionIterator().forEachRemaining(lazyDescriptions::add);
+                checkSameDescriptions(behaviorGraph.getPeriodicDescriptions(), lazyDescriptions, vca.getAlphabet());
+            }
+        }
+
+        // The level 0 is not like the other levels. So, the descriptions with offset 0 are given last
+        Iterator<Description<Character>> iterator = getWithoutInternals(4).getPeriodicDescriptionIterator();
+        List<Description<Character>> lazyDescriptions = new ArrayList<>();
+        iterator.forEachRemaining(lazyDescriptions::add);
+        assertEquals(5, lazyDescriptions.size());
+        assertEquals(2, lazyDescriptions.get(2).getOffset());
+        assertEquals(1, lazyDescriptions.get(2).getPeriod());
+        VCA<?, Character> vca = lazyDescriptions.get(2).toVCA(getAlphabetWithoutInternals());
+        assertTrue(vca.accepts(Word.fromString("aabb")));
+        assertTrue(vca.accepts(Word.fromString("aaabbb")));
+        assertEquals(0, lazyDescriptions.get(3).getOffset());
+        assertEquals(0, lazyDescriptions.get(4).getOffset());
+    }
+
+    /**
+     * Copies the behavior graph of the VCA limited to the threshold, with the level of each state
+     */
+    private LimitedBehaviorGraph<String> toLimitedBehaviorGraph(VCA<?, String> vca, int threshold) {
+        return copyWithLevels(vca.toLimitedBehaviorGraph(threshold), vca.getAlphabet(), threshold);
+    }
+
+    private <S> LimitedBehaviorGraph<String> copyWithLevels(DFA<S, String> dfa, VPDAlphabet<String> alphabet, int threshold) {
+        LimitedBehaviorGraph<String> behaviorGraph = new LimitedBehaviorGraph<>(alphabet, threshold);
+        Map<S, Integer> states = new HashMap<>();
+        Map<S, Integer> levels = new HashMap<>();
+        S initial = dfa.getInitialState();
+        states.put(initial, behaviorGraph.addInitialState(dfa.isAccepting(initial)));
+        levels.put(initial, 0);
+        behaviorGraph.setStateLevel(states.get(initial), 0);
+
+        Queue<S> queue = new LinkedList<>();
+        queue.add(initial);
+        while (!queue.isEmpty()) {
+            S state = queue.poll();
+            for (String symbol : alphabet) {
+                S target = dfa.getSuccessor(state, symbol);
+                if (target == null) {
+                    continue;
+                }
+                if (!states.containsKey(target)) {
+                    int level = levels.get(state) + ComputeCounterValue.signOf(symbol, alphabet);
+                    states.put(target, behaviorGraph.addState(dfa.isAccepting(target)));
+                    levels.put(target, level);
+                    behaviorGraph.setStateLevel(states.get(target), level);
+                    queue.add(target);
+                }
+                behaviorGraph.setTransition(states.get(state), symbol, states.get(target));
+            }
+        }
+        return behaviorGraph;
+    }
+
+    private <I extends Comparable<I>> void checkSameDescriptions(List<Description<I>> descriptions, List<Description<I>> lazyDescriptions, VPDAlphabet<I> alphabet) {
+        assertEquals(lazyDescriptions.size(), descriptions.size());
+        for (Description<I> description : descriptions) {
+            Description<I> lazyDescription = lazyDescriptions.stream().
+                filter(d -> d.getOffset() == description.getOffset() && d.getPeriod() == description.getPeriod()).
+                findFirst().
+                get();
+            assertEquals(lazyDescription.getTauMappings(), description.getTauMappings());
+            assertEquals(lazyDescription.getInitialState(), description.getInitialState());
+            assertTrue(sameLanguage(alphabet, lazyDescription.toVCA(alphabet), description.toVCA(alphabet)));
+        }
+    }
+
+    private <I, L1, L2> boolean sameLanguage(VPDAlphabet<I> alphabet, VCA<L1, I> vca1, VCA<L2, I> vca2) {
+        return new ProductVCA<>(alphabet, vca1, vca2, AcceptanceCombiner.XOR).getAcceptedWord() == null;
+    }
+
+    @Test
+    public void testIsomorphismUsesInternalTransitions() {
+        // The level 0 has an internal loop but the levels 1 and 2 do not
+        // So, the level 0 can not be mapped on the level 1, while the level 1 can be mapped on the level 2
+        LimitedBehaviorGraph<Character> behaviorGraph = new LimitedBehaviorGraph<>(getAlphabetWithInternals(), 2);
+        Integer eps = behaviorGraph.addInitialState(true);
+        Integer a = behaviorGraph.addState();
+        Integer aa = behaviorGraph.addState();
+        behaviorGraph.setStateLevel(eps, 0);
+        behaviorGraph.setStateLevel(a, 1);
+        behaviorGraph.setStateLevel(aa, 2);
+
+        behaviorGraph.setTransition(eps,    (Character)'c', eps);
+        behaviorGraph.setTransition(eps,    (Character)'a', a);
+        behaviorGraph.setTransition(a,      (Character)'a', aa);
+        behaviorGraph.setTransition(a,      (Character)'b', eps);
+        behaviorGraph.setTransition(aa,     (Character)'b', a);
+
+        List<Description<Character>> descriptions = behaviorGraph.getPeriodicDescriptions();
+        assertEquals(1, descriptions.size());
+        assertEquals(1, descriptions.get(0).getOffset());
+        assertEquals(1, descriptions.get(0).getPeriod());
+        VCA<?, Character> vca = descriptions.get(0).toVCA(getAlphabetWithInternals());
+        assertTrue(vca.accepts(Word.fromString("cc")));
+        assertTrue(vca.accepts(Word.fromString("aaabbb")));
+        assertFalse(vca.accepts(Word.fromString("aacbb")));
+    }
+
     private VPDAlphabet<Character> getAlphabetWithInternals() {
         return new DefaultVPDAlphabet<>(Arrays.asList('c'), Arrays.asList('a'), Arrays.asList('b'));
     }
@@ -0,0 +1,70 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.behaviorgraph;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.impl.DefaultVPDAlphabet;
+
+public class TauMappingTest {
+    private VPDAlphabet<Character> getAlphabet() {
+        return new DefaultVPDAlphabet<>(Arrays.asList('c'), Arrays.asList('a'), Arrays.asList('b'));
+    }
+
+    @Test
+    public void testTransitions() {
+        VPDAlphabet<Character> alphabet = getAlphabet();
+        TauMapping.Builder<Character> builder = new TauMapping.Builder<>(alphabet, 2);
+        builder.addTransition(1, 'a', 2).addTransition(2, 'b', 1);
+        TauMapping<Character> tauMapping = builder.build();
+
+        assertEquals(tauMapping.getTransition(1, 'a'), 2);
+        assertEquals(tauMapping.getTransition(2, 'b'), 1);
+        assertEquals(tauMapping.getTransition(1, 'b'), -1);
+        assertEquals(tauMapping.getTransition(2, 'c'), -1);
+        assertEquals(tauMapping.getTransitionByIndex(1, alphabet.getSymbolIndex('a')), 2);
+
+        // The mapping is not modified by the builder once it is built
+        builder.addTransition(1, 'c', 1);
+        assertEquals(tauMapping.getTransition(1, 'c'), -1);
+        TauMapping<Character> otherMapping = builder.build();
+        assertEquals(otherMapping.getTransition(1, 'c'), 1);
+        assertNotEquals(otherMapping, tauMapping);
+    }
+
+    @Test
+    public void testEquals() {
+        TauMapping<Character> first = new TauMapping.Builder<>(getAlphabet(), 2).addTransition(1, 'a', 2).build();
+        TauMapping<Character> second = new TauMapping.Builder<>(getAlphabet(), 2).addTransition(1, 'a', 2).build();
+        assertEquals(second, first);
+        assertEquals(second.hashCode(), first.hashCode());
+    }
+
+    @Test(expectedExceptions = InvalidParameterException.class)
+    public void testInvalidTarget() {
+        new TauMapping.Builder<>(new DefaultVPDAlphabet<>(Arrays.asList('c'), Collections.emptyList(), Collections.emptyList()), 2).addTransition(1, 'c', 3);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.examples;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import be.uantwerpen.learningvca.vca.Location;
+import be.uantwerpen.learningvca.vca.ProductVCA;
+import be.uantwerpen.learningvca.vca.State;
+import net.automatalib.util.ts.acceptors.AcceptanceCombiner;
+
+public class RandomVCAGeneratorTest {
+    @Test
+    public void testParameters() {
+        DefaultVCA<String> vca = new RandomVCAGenerator(42).generate(50, 3, 2, 2, 1, 0.3);
+        assertEquals(vca.size(), 50);
+        assertEquals(vca.getThreshold(), 3);
+        assertEquals(vca.getAlphabet().getNumCalls(), 2);
+        assertEquals(vca.getAlphabet().getNumReturns(), 2);
+        assertEquals(vca.getAlphabet().getNumInternals(), 1);
+    }
+
+    @Test
+    public void testReachability() {
+        DefaultVCA<String> vca = new RandomVCAGenerator(7).generate(100, 2, 1, 1, 2, 0.1);
+
+        Set<Location> reachedLocations = new HashSet<>();
+        Set<State<Location>> seen = new HashSet<>();
+        Queue<State<Location>> queue = new LinkedList<>();
+        queue.add(vca.getInitialState());
+        seen.add(vca.getInitialState());
+        while (!queue.isEmpty()) {
+            State<Location> state = queue.poll();
+            reachedLocations.add(state.getLocation());
+            for (String symbol : vca.getAlphabet()) {
+                if (vca.getAlphabet().isReturnSymbol(symbol) && state.getCounterValue().isZero()) {
+                    continue;
+                }
+                State<Location> successor = vca.getTransition(state, symbol);
+                if (!successor.isSink() && successor.getCounterValue().isBetween0AndT(2 * vca.getThreshold() + 2) && seen.add(successor)) {
+                    queue.add(successor);
+                }
+            }
+        }
+
+        assertEquals(reachedLocations.size(), vca.size());
+    }
+
+    @Test
+    public void testSameSeedSameVCA() {
+        DefaultVCA<String> vca1 = new RandomVCAGenerator(1234).generate(20, 2, 1, 1, 1, 0.5);
+        DefaultVCA<String> vca2 = new RandomVCAGenerator(1234).generate(20, 2, 1, 1, 1, 0.5);
+
+        for (Location location : vca1.getLocations()) {
+            Location other = vca2.getLocations().get(location.getId());
+            assertEquals(other.isAccepting(), location.isAccepting());
+            for (String symbol : vca1.getAlphabet()) {
+                for (int counterValue = 0 ; counterValue <= vca1.getThreshold() ; counterValue++) {
+                    assertEquals(
+                        vca2.getLocationId(vca2.getSuccessor(other, symbol, counterValue)),
+                        vca1.getLocationId(vca1.getSuccessor(location, symbol, counterValue))
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the VCA and starts it in the configuration (location, counterValue).
+     * 
+     * The configuration is reached by reading counterValue times the first call symbol, along new locations.
+     */
+    private DefaultVCA<String> startFrom(DefaultVCA<String> vca, Location location, int counterValue) {
+        String call = vca.getAlphabet().getCallSymbol(0);
+        DefaultVCA<String> copy = new DefaultVCA<>(vca.getAlphabet(), vca.getThreshold());
+        List<Location> path = new ArrayList<>(counterValue + 1);
+        path.add(copy.addInitialLocation(false));
+        for (int i = 1 ; i < counterValue ; i++) {
+            path.add(copy.addLocation(false));
+        }
+
+        List<Location> locations = new ArrayList<>(vca.size());
+        for (Location original : vca.getLocations()) {
+            locations.add(copy.addLocation(original.isAccepting()));
+        }
+        for (Location original : vca.getLocations()) {
+            for (String symbol : vca.getAlphabet()) {
+                for (int c = 0 ; c <= vca.getThreshold() ; c++) {
+                    Location successor = vca.getSuccessor(original, symbol, c);
+                    if (successor != null) {
+                        copy.setSuccessor(locations.get(original.getId()), c, symbol, locations.get(successor.getId()));
+                    }
+                }
+            }
+        }
+
+        if (counterValue == 0) {
+            // The initial location is not used
+            copy.setInitialLocation(locations.get(location.getId()));
+        }
+        for (int i = 0 ; i < counterValue ; i++) {
+            Location target = i == counterValue - 1 ? locations.get(location.getId()) : path.get(i + 1);
+            copy.setSuccessor(path.get(i), Math.min(i, vca.getThreshold()), call, target);
+        }
+        return copy;
+    }
+
+    @Test
+    public void testMinimality() {
+        for (long seed = 1 ; seed <= 30 ; seed++) {
+            DefaultVCA<String> vca = new RandomVCAGenerator(seed).generate(5, 1, 1, 1, 1, 0.3);
+            int bound = 2 * vca.getThreshold() + 2;
+            List<Location> locations = vca.getLocations();
+            for (int p = 0 ; p < locations.size() ; p++) {
+                for (int q = p + 1 ; q < locations.size() ; q++) {
+                    boolean distinguished = false;
+                    for (int counterValue = 0 ; counterValue <= bound && !distinguished ; counterValue++) {
+                        DefaultVCA<String> fromP = startFrom(vca, locations.get(p), counterValue);
+                        DefaultVCA<String> fromQ = startFrom(vca, locations.get(q), counterValue);
+                        distinguished = new ProductVCA<>(vca.getAlphabet(), fromP, fromQ, AcceptanceCombiner.XOR).getAcceptedWord() != null;
+                    }
+                    assertTrue(distinguished, "Seed " + seed + ": the locations " + p + " and " + q + " are equivalent");
+                }
+
+                // No location is equivalent to the sink
+                boolean accepts = false;
+                for (int counterValue = 0 ; counterValue <= bound && !accepts ; counterValue++) {
+                    accepts = startFrom(vca, locations.get(p), counterValue).getAcceptedWord() != null;
+                }
+                assertTrue(accepts, "Seed " + seed + ": the location " + p + " accepts nothing");
+            }
+        }
+    }
+}
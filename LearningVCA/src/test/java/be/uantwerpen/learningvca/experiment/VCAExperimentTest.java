@@ -17,11 +17,24 @@
  */
 package be.uantwerpen.learningvca.experiment;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
 import org.testng.annotations.Test;
 
 import be.uantwerpen.learningvca.examples.ExampleVariableThreshold;
@@ -31,24 +44,49 @@ import be.uantwerpen.learningvca.examples.ExampleRegular;
 import be.uantwerpen.learningvca.examples.ExampleTwoCalls;
 import be.uantwerpen.learningvca.examples.ExampleWithInternals;
 import be.uantwerpen.learningvca.examples.ExampleWithoutInternals;
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
+import be.uantwerpen.learningvca.learner.CounterexampleHandler;
+import be.uantwerpen.learningvca.learner.CounterexampleHandlers;
+import be.uantwerpen.learningvca.learner.DiscriminationTreeLearnerVCA;
 import be.uantwerpen.learningvca.learner.LearnerVCA;
+import be.uantwerpen.learningvca.learner.VCALearner;
 import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle;
+import be.uantwerpen.learningvca.oracles.EquivalenceVCAOracle.CounterexampleMode;
 import be.uantwerpen.learningvca.oracles.PartialEquivalenceOracle;
 import be.uantwerpen.learningvca.vca.VCA;
 import de.learnlib.api.oracle.MembershipOracle;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.filter.statistic.oracle.CounterOracle;
 import de.learnlib.oracle.membership.SimulatorOracle;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 
 public class VCAExperimentTest {
     private <I extends Comparable<I>> VCA<?, I> execute(VCA<?, I> sul) {
+        return execute(sul, CounterexampleMode.SHORTEST);
+    }
+
+    private <I extends Comparable<I>> VCA<?, I> execute(VCA<?, I> sul, CounterexampleMode mode) {
+        return execute(sul, mode, CounterexampleHandlers.ALL_PREFIXES_AND_SUFFIXES);
+    }
+
+    private <I extends Comparable<I>> VCA<?, I> execute(VCA<?, I> sul, CounterexampleMode mode, CounterexampleHandler counterexampleHandler) {
         VPDAlphabet<I> alphabet = sul.getAlphabet();
+        MembershipOracle<I, Boolean> membershipOracle = new SimulatorOracle<>(sul);
+        PartialEquivalenceOracle<I> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
+        return execute(sul, mode, new LearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle, counterexampleHandler));
+    }
 
+    private <I extends Comparable<I>> VCA<?, I> executeDiscriminationTree(VCA<?, I> sul) {
+        VPDAlphabet<I> alphabet = sul.getAlphabet();
         MembershipOracle<I, Boolean> membershipOracle = new SimulatorOracle<>(sul);
         PartialEquivalenceOracle<I> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
-        EquivalenceVCAOracle<I> equivalenceVCAOracle = new EquivalenceVCAOracle<>(sul);
+        return execute(sul, CounterexampleMode.SHORTEST, new DiscriminationTreeLearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle));
+    }
 
-        LearnerVCA<I> learner = new LearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle);
+    private <I extends Comparable<I>> VCA<?, I> execute(VCA<?, I> sul, CounterexampleMode mode, VCALearner<I> learner) {
+        VPDAlphabet<I> alphabet = sul.getAlphabet();
+        EquivalenceVCAOracle<I> equivalenceVCAOracle = new EquivalenceVCAOracle<>(sul, mode);
 
         VCAExperiment<I> experiment = new VCAExperiment<>(learner, equivalenceVCAOracle, alphabet);
         VCA<?, I> answer = experiment.run();
@@ -201,4 +239,307 @@ public class VCAExperimentTest {
     public void testVariableThreshold() {
         execute(ExampleVariableThreshold.getVCA(20));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRandom() {
+        execute(new RandomVCAGenerator(1).generate(4, 1, 1, 1, 1, 0.5));
+    }
+
+    @Test
+    public void testMinimalHeightCounterexamples() {
+        execute(ExampleFourDeltas.getVCA(), CounterexampleMode.MINIMAL_HEIGHT);
+        execute(new RandomVCAGenerator(1).generate(4, 1, 1, 1, 1, 0.5), CounterexampleMode.MINIMAL_HEIGHT);
+    }
+
+    @Test
+    public void testDiscriminationTree() {
+        executeDiscriminationTree(ExampleWithoutInternals.getVCA());
+        executeDiscriminationTree(ExampleWithInternals.getVCA());
+        executeDiscriminationTree(ExampleTwoCalls.getVCA());
+        executeDiscriminationTree(ExampleRegular.getVCA());
+        executeDiscriminationTree(ExampleInternalLoop.getVCA());
+        executeDiscriminationTree(ExampleFourDeltas.getVCA());
+        executeDiscriminationTree(ExampleVariableThreshold.getVCA(20));
+        for (long seed = 1 ; seed <= 4 ; seed++) {
+            executeDiscriminationTree(new RandomVCAGenerator(seed).generate(5, 2, 1, 1, 1, 0.5));
+        }
+    }
+
+    @Test
+    public void testDiscriminationTreeMembershipQueries() {
+        long tableQueries = 0;
+        long treeQueries = 0;
+        for (long seed = 1 ; seed <= 6 ; seed++) {
+            VCA<?, String> sul = new RandomVCAGenerator(seed).generate(8, 2, 1, 1, 1, 0.5);
+            VPDAlphabet<String> alphabet = sul.getAlphabet();
+            PartialEquivalenceOracle<String> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
+
+            CounterOracle<String, Boolean> tableOracle = new CounterOracle<>(new SimulatorOracle<>(sul), "membership queries");
+            execute(sul, CounterexampleMode.SHORTEST, new LearnerVCA<>(alphabet, tableOracle, partialEquivalenceOracle));
+            CounterOracle<String, Boolean> treeOracle = new CounterOracle<>(new SimulatorOracle<>(sul), "membership queries");
+            execute(sul, CounterexampleMode.SHORTEST, new DiscriminationTreeLearnerVCA<>(alphabet, treeOracle, partialEquivalenceOracle));
+
+            tableQueries += tableOracle.getCount();
+            treeQueries += treeOracle.getCount();
+        }
+        // The tree learner asks far fewer queries (about a fifth, on these targets)
+        assertTrue(2 * treeQueries < tableQueries, "Discrimination tree: " + treeQueries + " queries; observation table: " + tableQueries + " queries");
+    }
+
+    @Test
+    public void testCounterexampleHandlers() {
+        for (CounterexampleHandlers handler : CounterexampleHandlers.values()) {
+            execute(ExampleWithInternals.getVCA(), CounterexampleMode.SHORTEST, handler);
+            execute(ExampleFourDeltas.getVCA(), CounterexampleMode.SHORTEST, handler);
+            execute(ExampleVariableThreshold.getVCA(5), CounterexampleMode.SHORTEST, handler);
+            for (long seed = 1 ; seed <= 4 ; seed++) {
+                execute(new RandomVCAGenerator(seed).generate(5, 2, 1, 1, 1, 0.5), CounterexampleMode.SHORTEST, handler);
+            }
+        }
+    }
+
+    private <I extends Comparable<I>> VCAExperiment<I> createExperiment(VCA<?, I> sul) {
+        VPDAlphabet<I> alphabet = sul.getAlphabet();
+        MembershipOracle<I, Boolean> membershipOracle = new SimulatorOracle<>(sul);
+        PartialEquivalenceOracle<I> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
+        LearnerVCA<I> learner = new LearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle);
+        return new VCAExperiment<>(learner, new EquivalenceVCAOracle<>(sul), alphabet);
+    }
+
+    @Test
+    public void testParallelHypotheses() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (long seed = 1 ; seed <= 4 ; seed++) {
+                VCA<?, String> sul = new RandomVCAGenerator(seed).generate(5, 2, 1, 1, 1, 0.5);
+
+                VCAExperiment<String> sequential = createExperiment(sul);
+                VCA<?, String> sequentialAnswer = sequential.run();
+
+                VCAExperiment<String> parallel = createExperiment(sul);
+                parallel.setParallelHypotheses(executor, 3);
+                VCA<?, String> parallelAnswer = parallel.run();
+
+                assertNull(new EquivalenceVCAOracle<>(sul).findCounterExample(parallelAnswer, sul.getAlphabet()));
+                // The same hypothesis is chosen, whatever the scheduling
+                assertEquals(parallel.getRounds().getCount(), sequential.getRounds().getCount());
+                assertEquals(parallelAnswer.size(), sequentialAnswer.size());
+                assertEquals(parallelAnswer.getThreshold(), sequentialAnswer.getThreshold());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A ForkJoinPool that numbers the submitted tasks.
+     * 
+     * Like the common pool, it does not interrupt the cancelled tasks.
+     */
+    private static class NumberingForkJoinPool extends ForkJoinPool {
+        private final AtomicInteger submitted = new AtomicInteger(0);
+        private final AtomicInteger started = new AtomicInteger(0);
+        private volatile Thread submitter = null;
+        private final ThreadLocal<Integer> current = new ThreadLocal<>();
+        private final Map<Integer, Boolean> correct = new ConcurrentHashMap<>();
+
+        public NumberingForkJoinPool(int parallelism) {
+            super(parallelism);
+        }
+
+        @Override
+        public <T> ForkJoinTask<T> submit(Callable<T> task) {
+            submitter = Thread.currentThread();
+            int index = submitted.getAndIncrement();
+            return super.submit(() -> {
+                started.incrementAndGet();
+                current.set(index);
+                try {
+                    return task.call();
+                }
+                finally {
+                    // A hypothesis rejected by the observations is not given to the equivalence oracle
+                    correct.putIfAbsent(index, false);
+                    current.remove();
+                }
+            });
+        }
+
+        private boolean isAfterWrongHypotheses(int index) {
+            for (int i = 0 ; i < index ; i++) {
+                if (!Boolean.FALSE.equals(correct.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * An equivalence oracle whose checks submitted after a correct hypothesis run until they are cancelled.
+     * 
+     * This mimics long emptiness checks that are no longer needed, in order to see whether they are stopped.
+     */
+    private static class SlowEquivalenceVCAOracle<I> extends EquivalenceVCAOracle<I> {
+        private static final long TIMEOUT = 5000;
+
+        private final NumberingForkJoinPool pool;
+        private final AtomicInteger running = new AtomicInteger(0);
+        private final AtomicInteger stopped = new AtomicInteger(0);
+
+        public SlowEquivalenceVCAOracle(VCA<?, I> sul, NumberingForkJoinPool pool) {
+            super(sul);
+            this.pool = pool;
+        }
+
+        @Override
+        public DefaultQuery<I, Boolean> findCounterExample(VCA<?, I> hypothesis, Collection<? extends I> inputs, BooleanSupplier cancelled) {
+            running.incrementAndGet();
+            try {
+                DefaultQuery<I, Boolean> counterexample = super.findCounterExample(hypothesis, inputs, cancelled);
+                Integer index = pool.current.get();
+                if (index == null) {
+                    return counterexample;
+                }
+                long end = System.currentTimeMillis() + TIMEOUT;
+                if (counterexample == null) {
+                    // The other checks of the batch must be running when the experiment cancels them
+                    // So, we wait until the whole batch is submitted (the experiment is then waiting for the results) and started
+                    while (System.currentTimeMillis() < end && (pool.submitter.getState() == Thread.State.RUNNABLE || pool.started.get() < pool.submitted.get())) {
+                        Thread.yield();
+                    }
+                    pool.correct.put(index, true);
+                    return null;
+                }
+                pool.correct.put(index, false);
+                // We wait until we know whether this check is still needed
+                while (System.currentTimeMillis() < end && !pool.isAfterWrongHypotheses(index)) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException();
+                    }
+                    Thread.yield();
+                }
+                return counterexample;
+            }
+            catch (CancellationException e) {
+                stopped.incrementAndGet();
+                throw e;
+            }
+            finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void testCancelWithForkJoinPool() throws InterruptedException {
+        // For these seeds, the last batch holds hypotheses after the correct one, which must be stopped
+        long[] seeds = {3, 6, 8};
+        int[] losingChecks = {1, 2, 2};
+        for (int i = 0 ; i < seeds.length ; i++) {
+            // Every check of a batch is running at the same time
+            NumberingForkJoinPool pool = new NumberingForkJoinPool(3);
+            try {
+                VCA<?, String> sul = new RandomVCAGenerator(seeds[i]).generate(4, 1, 1, 1, 1, 0.6);
+                VPDAlphabet<String> alphabet = sul.getAlphabet();
+                PartialEquivalenceOracle<String> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
+                LearnerVCA<String> learner = new LearnerVCA<>(alphabet, new SimulatorOracle<>(sul), partialEquivalenceOracle);
+                SlowEquivalenceVCAOracle<String> equivalenceOracle = new SlowEquivalenceVCAOracle<>(sul, pool);
+                VCAExperiment<String> experiment = new VCAExperiment<>(learner, equivalenceOracle, alphabet);
+                // Every hypothesis is given to the equivalence oracle
+                experiment.setFilterHypotheses(false);
+                experiment.setParallelHypotheses(pool, 3);
+                VCA<?, String> answer = experiment.run();
+
+                assertNull(new EquivalenceVCAOracle<>(sul).findCounterExample(answer, alphabet));
+                // The losing checks stop long before their timeout
+                long end = System.currentTimeMillis() + SlowEquivalenceVCAOracle.TIMEOUT / 5;
+                while (equivalenceOracle.running.get() != 0 && System.currentTimeMillis() < end) {
+                    Thread.sleep(1);
+                }
+                assertEquals(equivalenceOracle.running.get(), 0);
+                assertEquals(equivalenceOracle.stopped.get(), losingChecks[i]);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testCommonPool() {
+        for (long seed = 1 ; seed <= 4 ; seed++) {
+            VCA<?, String> sul = new RandomVCAGenerator(seed).generate(5, 2, 1, 1, 1, 0.5);
+
+            VCAExperiment<String> sequential = createExperiment(sul);
+            VCA<?, String> sequentialAnswer = sequential.run();
+
+            VCAExperiment<String> parallel = createExperiment(sul);
+            parallel.setParallelHypotheses(ForkJoinPool.commonPool(), 4);
+            VCA<?, String> parallelAnswer = parallel.run();
+
+            assertNull(new EquivalenceVCAOracle<>(sul).findCounterExample(parallelAnswer, sul.getAlphabet()));
+            assertEquals(parallel.getRounds().getCount(), sequential.getRounds().getCount());
+            assertEquals(parallelAnswer.size(), sequentialAnswer.size());
+        }
+    }
+
+    /**
+     * An equivalence oracle that counts the equivalence queries.
+     */
+    private static class CountingEquivalenceVCAOracle<I> extends EquivalenceVCAOracle<I> {
+        private final AtomicInteger queries = new AtomicInteger(0);
+
+        public CountingEquivalenceVCAOracle(VCA<?, I> sul) {
+            super(sul);
+        }
+
+        @Override
+        public DefaultQuery<I, Boolean> findCounterExample(VCA<?, I> hypothesis, Collection<? extends I> inputs, BooleanSupplier cancelled) {
+            queries.incrementAndGet();
+            return super.findCounterExample(hypothesis, inputs, cancelled);
+        }
+    }
+
+    private VCALearner<String> createLearner(VCA<?, String> sul, boolean discriminationTree) {
+        VPDAlphabet<String> alphabet = sul.getAlphabet();
+        MembershipOracle<String, Boolean> membershipOracle = new SimulatorOracle<>(sul);
+        PartialEquivalenceOracle<String> partialEquivalenceOracle = new PartialEquivalenceOracle<>(sul);
+        if (discriminationTree) {
+            return new DiscriminationTreeLearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle);
+        }
+        return new LearnerVCA<>(alphabet, membershipOracle, partialEquivalenceOracle);
+    }
+
+    @Test
+    public void testFilterHypotheses() {
+        long savedEquivalenceQueries = 0;
+        for (long seed = 1 ; seed <= 4 ; seed++) {
+            VCA<?, String> sul = new RandomVCAGenerator(seed).generate(5, 2, 1, 1, 1, 0.5);
+            VPDAlphabet<String> alphabet = sul.getAlphabet();
+
+            for (boolean discriminationTree : new boolean[] {false, true}) {
+                VCALearner<String> learner = createLearner(sul, discriminationTree);
+                CountingEquivalenceVCAOracle<String> equivalenceOracle = new CountingEquivalenceVCAOracle<>(sul);
+                VCAExperiment<String> experiment = new VCAExperiment<>(learner, equivalenceOracle, alphabet);
+                VCA<?, String> answer = experiment.run();
+                assertNull(new EquivalenceVCAOracle<>(sul).findCounterExample(answer, alphabet));
+                // The final hypothesis is consistent with the known answers
+                assertTrue(learner.isConsistentWithObservations(answer));
+
+                CountingEquivalenceVCAOracle<String> unfilteredEquivalenceOracle = new CountingEquivalenceVCAOracle<>(sul);
+                VCAExperiment<String> unfiltered = new VCAExperiment<>(createLearner(sul, discriminationTree), unfilteredEquivalenceOracle, alphabet);
+                unfiltered.setFilterHypotheses(false);
+                unfiltered.run();
+                assertEquals(unfiltered.getSavedEquivalenceQueries().getCount(), 0);
+
+                // The learner goes through the same rounds, and only the rejected hypotheses are not given to the equivalence oracle
+                assertEquals(experiment.getRounds().getCount(), unfiltered.getRounds().getCount());
+                assertEquals(experiment.getSavedEquivalenceQueries().getCount(), unfilteredEquivalenceOracle.queries.get() - equivalenceOracle.queries.get());
+                savedEquivalenceQueries += experiment.getSavedEquivalenceQueries().getCount();
+            }
+        }
+        assertTrue(savedEquivalenceQueries > 0);
+    }
+}
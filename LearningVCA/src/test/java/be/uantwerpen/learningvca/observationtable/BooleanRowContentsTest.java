@@ -0,0 +1,88 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.observationtable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class BooleanRowContentsTest {
+    private static void fill(Random random, int size, List<Boolean> list1, List<Boolean> list2) {
+        for (int i = 0 ; i < size ; i++) {
+            boolean value = random.nextBoolean();
+            list1.add(value);
+            list2.add(value);
+        }
+    }
+
+    @Test
+    public void testSameAsArrayList() {
+        Random random = new Random(42);
+        // 150 cells spans three words
+        BooleanRowContents contents = new BooleanRowContents(1);
+        List<Boolean> expected = new ArrayList<>();
+        fill(random, 150, contents, expected);
+
+        assertEquals(contents.size(), 150);
+        assertEquals(contents, expected);
+        assertEquals(expected, contents);
+        assertEquals(contents.hashCode(), expected.hashCode());
+        for (int i = 0 ; i < expected.size() ; i++) {
+            assertEquals(contents.get(i), expected.get(i));
+        }
+
+        contents.set(3, !expected.get(3));
+        expected.set(3, !expected.get(3));
+        contents.set(100, !expected.get(100));
+        expected.set(100, !expected.get(100));
+        assertEquals(contents, expected);
+        assertEquals(contents.hashCode(), expected.hashCode());
+    }
+
+    @Test
+    public void testEquals() {
+        Random random = new Random(7);
+        BooleanRowContents contents1 = new BooleanRowContents(70);
+        BooleanRowContents contents2 = new BooleanRowContents(0);
+        fill(random, 70, contents1, contents2);
+        assertEquals(contents1, contents2);
+        assertEquals(contents1.hashCode(), contents2.hashCode());
+
+        contents1.add(false);
+        assertNotEquals(contents1, contents2);
+        contents2.add(true);
+        assertNotEquals(contents1, contents2);
+
+        BooleanRowContents empty1 = new BooleanRowContents(0);
+        BooleanRowContents empty2 = new BooleanRowContents(10);
+        assertTrue(empty1.equals(empty2));
+        assertFalse(empty1.equals(contents1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNull() {
+        new BooleanRowContents(1).add(null);
+    }
+}
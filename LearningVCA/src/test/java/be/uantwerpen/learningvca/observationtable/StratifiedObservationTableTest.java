@@ -152,6 +152,15 @@ public class StratifiedObservationTableTest {
 
         StratifiedObservationRow<Character> rowA = table.getRow(Word.fromLetter('a'));
         assertNotNull(rowA);
+        assertEquals(1, rowA.getLevel());
+
+        assertEquals(5, table.getLongPrefixRows(0).size() + table.getLongPrefixRows(1).size());
+        for (int level = 0 ; level <= 1 ; level++) {
+            for (StratifiedObservationRow<Character> row : table.getLongPrefixRows(level)) {
+                assertEquals(level, row.getLevel());
+                assertFalse(row.isShortPrefixRow());
+            }
+        }
 
         assertTrue(table.isClosed());
         assertTrue(table.isConsistent());
@@ -194,6 +203,51 @@ public class StratifiedObservationTableTest {
         assertNotNull(inconsistency);
         Word<Character> distinguish = table.findDistinguishingSuffix(inconsistency);
         assertNotNull(distinguish);
+
+        List<Inconsistency<Character>> inconsistencies = table.findInconsistencies();
+        assertEquals(1, inconsistencies.size());
+        assertEquals(inconsistency.getFirstRow(), inconsistencies.get(0).getFirstRow());
+        assertEquals(inconsistency.getSecondRow(), inconsistencies.get(0).getSecondRow());
+        assertEquals(inconsistency.getSymbol(), inconsistencies.get(0).getSymbol());
+    }
+
+    @Test
+    public void testFindUnclosedRows() {
+        table.initialize(Arrays.asList(Word.epsilon()), Arrays.asList(Word.epsilon()), oracle);
+        table.addShortPrefixes(Arrays.asList(Word.fromLetter('a'), Word.fromString("ac")), oracle);
+
+        List<StratifiedObservationRow<Character>> unclosedRows = table.findUnclosedRows();
+        assertEquals(1, unclosedRows.size());
+        assertEquals(Word.fromString("acb"), unclosedRows.get(0).getLabel());
+        assertEquals(unclosedRows.get(0), table.findUnclosedRow());
+
+        table.addShortPrefixes(Arrays.asList(unclosedRows.get(0).getLabel()), oracle);
+        assertTrue(table.findUnclosedRows().isEmpty());
+        assertTrue(table.isClosed());
+    }
+
+    @Test
+    public void testIsClosedDoesNotDuplicateRows() {
+        table.initialize(Arrays.asList(Word.epsilon(), Word.fromLetter('c')), Arrays.asList(Word.epsilon()), oracle);
+        // The level 1 is created after "c", so "ca" is not yet in the table
+        table.addShortPrefixes(Arrays.asList(Word.fromLetter('a')), oracle);
+        assertNull(table.getRow(Word.fromString("ca")));
+
+        assertFalse(table.isClosed());
+        int numberOfRows = table.numberOfRows();
+        int numberOfLongPrefixRows = table.numberOfLongPrefixRows();
+
+        assertFalse(table.isClosed());
+        assertEquals(numberOfRows, table.numberOfRows());
+        assertEquals(numberOfLongPrefixRows, table.numberOfLongPrefixRows());
+
+        Row<Character> unclosedRow = table.findUnclosedRow();
+        assertEquals(Word.fromString("ca"), unclosedRow.getLabel());
+        assertEquals(numberOfRows, table.numberOfRows());
+
+        table.toShortPrefixes(Collections.singletonList(unclosedRow), oracle);
+        assertNotNull(table.rowContents(unclosedRow));
+        assertTrue(table.isClosed());
     }
 
     @Test
@@ -219,6 +273,43 @@ public class StratifiedObservationTableTest {
         assertTrue(table.isConsistent()); // Each equivalence class has only one representative
     }
 
+    @Test
+    public void testAddDuplicateSuffixes() {
+        table.initialize(Arrays.asList(Word.epsilon()), Arrays.asList(Word.epsilon()), oracle);
+        table.addShortPrefixes(Arrays.asList(Word.fromLetter('a'), Word.fromSymbols('a', 'c')), oracle);
+
+        table.addSuffixes(Arrays.asList(Word.fromLetter('b'), Word.epsilon(), Word.fromLetter('b'), Word.fromLetter('b')), Arrays.asList(1, 1, 1, 0), oracle);
+        assertEquals(Arrays.asList(Word.epsilon(), Word.fromLetter('b')), table.getSuffixes(1));
+        assertEquals(Arrays.asList(Word.epsilon(), Word.fromLetter('b')), table.getSuffixes(0));
+
+        table.addSuffix(Word.fromLetter('b'), 1, oracle);
+        assertEquals(2, table.numberOfSuffixes(1));
+        assertEquals(Word.fromSymbols('a', 'c'), table.getRow(Word.fromSymbols('a', 'c')).getLabel());
+        assertNull(table.getRow(Word.fromSymbols('a', 'a', 'a')));
+    }
+
+    @Test
+    public void testAddSuffixesSplitsClasses() {
+        table.initialize(Arrays.asList(Word.epsilon()), Arrays.asList(Word.epsilon()), oracle);
+        table.addShortPrefixes(Arrays.asList(Word.fromLetter('a'), Word.fromString("ac"), Word.fromString("acb")), oracle);
+        int idOfEpsilon = table.getRow(Word.epsilon()).getRowContentId();
+
+        table.addSuffixes(Arrays.asList(Word.fromLetter('b'), Word.fromString("cb")), Arrays.asList(1, 1), oracle);
+        // The rows of the level 0 are not modified
+        assertEquals(idOfEpsilon, table.getRow(Word.epsilon()).getRowContentId());
+
+        // In a level, two rows have the same id iff they have the same contents
+        for (int level = 0 ; level <= table.getLevelLimit() ; level++) {
+            for (StratifiedObservationRow<Character> row1 : table.getAllRows(level)) {
+                assertEquals(table.numberOfSuffixes(level), table.rowContents(row1).size());
+                for (StratifiedObservationRow<Character> row2 : table.getAllRows(level)) {
+                    boolean sameContents = table.rowContents(row1).equals(table.rowContents(row2));
+                    assertEquals(row1.getRowContentId() == row2.getRowContentId(), sameContents);
+                }
+            }
+        }
+    }
+
     @Test
     public void testToVCA() {
         table.initialize(Collections.singletonList(Word.epsilon()), Collections.singletonList(Word.epsilon()), oracle);
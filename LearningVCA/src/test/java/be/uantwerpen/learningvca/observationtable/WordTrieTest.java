@@ -0,0 +1,62 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.observationtable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import net.automatalib.words.Word;
+
+public class WordTrieTest {
+    @Test
+    public void testPutAndGet() {
+        WordTrie<Character, Integer> trie = new WordTrie<>();
+        assertNull(trie.get(Word.epsilon()));
+        assertNull(trie.put(Word.fromString("ab"), 1));
+        assertNull(trie.put(Word.epsilon(), 0));
+        // The new value replaces the previous one
+        assertEquals(trie.put(Word.fromString("ab"), 2), Integer.valueOf(1));
+        assertEquals(trie.size(), 2);
+
+        assertEquals(trie.get(Word.fromString("ab")), Integer.valueOf(2));
+        assertEquals(trie.get(Word.epsilon()), Integer.valueOf(0));
+        // "a" is only an inner node
+        assertFalse(trie.containsKey(Word.fromString("a")));
+        assertFalse(trie.containsKey(Word.fromString("abc")));
+        assertTrue(trie.containsKey(Word.fromString("ab")));
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        WordTrie<Character, Integer> trie = new WordTrie<>();
+        assertNull(trie.putIfAbsent(Word.fromString("ab"), 1));
+        // The previous value is kept
+        assertEquals(trie.putIfAbsent(Word.fromString("ab"), 2), Integer.valueOf(1));
+        assertEquals(trie.get(Word.fromString("ab")), Integer.valueOf(1));
+        assertEquals(trie.size(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullValue() {
+        new WordTrie<Character, Integer>().put(Word.epsilon(), null);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.oracles;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.Test;
+
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
+import be.uantwerpen.learningvca.vca.DefaultVCA;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import net.automatalib.words.Word;
+
+public class ParallelMembershipOracleTest {
+    @Test
+    public void testSameAnswers() {
+        DefaultVCA<String> vca = new RandomVCAGenerator(5).generate(10, 2, 1, 1, 1, 0.7);
+        List<String> symbols = new ArrayList<>(vca.getAlphabet());
+        Random random = new Random(5);
+
+        List<DefaultQuery<String, Boolean>> queries = new ArrayList<>();
+        for (int i = 0 ; i < 1000 ; i++) {
+            List<String> word = new ArrayList<>();
+            int length = random.nextInt(12);
+            for (int j = 0 ; j < length ; j++) {
+                word.add(symbols.get(random.nextInt(symbols.size())));
+            }
+            queries.add(new DefaultQuery<>(Word.fromList(word)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new ParallelMembershipOracle<>(new SimulatorOracle<>(vca), executor, 7, 3).processQueries(queries);
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        for (DefaultQuery<String, Boolean> query : queries) {
+            assertEquals(query.getOutput(), vca.computeOutput(query.getInput()), query.toString());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidNumberOfTasks() {
+        new ParallelMembershipOracle<>(new SimulatorOracle<>(new RandomVCAGenerator(5).generate(2, 1, 1, 1, 1, 0.5)), ForkJoinPool.commonPool(), 0, 1);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.oracles;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import be.uantwerpen.learningvca.examples.ExampleWithoutInternals;
+import be.uantwerpen.learningvca.vca.VCA;
+import de.learnlib.api.query.DefaultQuery;
+import de.learnlib.filter.statistic.oracle.CounterOracle;
+import de.learnlib.oracle.membership.SimulatorOracle;
+import net.automatalib.words.Word;
+
+public class VCACacheOracleTest {
+    @Test
+    public void testCache() {
+        VCA<?, Character> vca = ExampleWithoutInternals.getVCA();
+        CounterOracle<Character, Boolean> counter = new CounterOracle<>(new SimulatorOracle<>(vca), "membership queries");
+        VCACacheOracle<Character> cache = new VCACacheOracle<>(vca.getAlphabet(), counter);
+
+        DefaultQuery<Character, Boolean> q1 = new DefaultQuery<>(Word.fromString("aabb"));
+        DefaultQuery<Character, Boolean> q2 = new DefaultQuery<>(Word.fromString("aa"), Word.fromString("bb"));
+        DefaultQuery<Character, Boolean> q3 = new DefaultQuery<>(Word.fromString("abab"));
+        cache.processQueries(Arrays.asList(q1, q2, q3));
+
+        assertTrue(q1.getOutput());
+        assertTrue(q2.getOutput());
+        assertFalse(q3.getOutput());
+        assertEquals(counter.getCount(), 2);
+        assertEquals(cache.getMissCounter().getCount(), 2);
+        assertEquals(cache.getHitCounter().getCount(), 1);
+
+        DefaultQuery<Character, Boolean> q4 = new DefaultQuery<>(Word.fromString("abab"));
+        cache.processQueries(Arrays.asList(q4));
+        assertFalse(q4.getOutput());
+        assertEquals(counter.getCount(), 2);
+        assertEquals(cache.getHitCounter().getCount(), 2);
+    }
+
+    @Test
+    public void testShortCircuit() {
+        VCA<?, Character> vca = ExampleWithoutInternals.getVCA();
+        CounterOracle<Character, Boolean> counter = new CounterOracle<>(new SimulatorOracle<>(vca), "membership queries");
+        VCACacheOracle<Character> cache = new VCACacheOracle<>(vca.getAlphabet(), counter);
+
+        DefaultQuery<Character, Boolean> negative = new DefaultQuery<>(Word.fromString("ba"));
+        DefaultQuery<Character, Boolean> notZero = new DefaultQuery<>(Word.fromString("aab"));
+        cache.processQueries(Arrays.asList(negative, notZero));
+
+        assertFalse(negative.getOutput());
+        assertFalse(notZero.getOutput());
+        assertEquals(counter.getCount(), 0);
+        assertEquals(cache.getShortCircuitCounter().getCount(), 2);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import be.uantwerpen.learningvca.examples.ExampleFourDeltas;
+import be.uantwerpen.learningvca.examples.ExampleTwoCalls;
+import be.uantwerpen.learningvca.examples.ExampleWithInternals;
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.DefaultVPDAlphabet;
+
+public class CompiledVCATest {
+    private <I> List<Word<I>> allWordsUpTo(VPDAlphabet<I> alphabet, int length) {
+        List<Word<I>> words = new ArrayList<>();
+        List<Word<I>> previous = Arrays.asList(Word.epsilon());
+        words.addAll(previous);
+        for (int i = 1 ; i <= length ; i++) {
+            List<Word<I>> current = new ArrayList<>();
+            for (Word<I> word : previous) {
+                for (I symbol : alphabet) {
+                    current.add(word.append(symbol));
+                }
+            }
+            words.addAll(current);
+            previous = current;
+        }
+        return words;
+    }
+
+    private <I> void checkSameLanguage(VCA<?, I> vca, int length) {
+        CompiledVCA<I> compiled = new CompiledVCA<>(vca);
+        assertEquals(compiled.size(), vca.size());
+        assertEquals(compiled.getThreshold(), vca.getThreshold());
+
+        for (Word<I> word : allWordsUpTo(vca.getAlphabet(), length)) {
+            boolean expected = vca.accepts(word);
+            assertEquals(compiled.accepts(word), expected, word.toString());
+            assertEquals(compiled.accepts(compiled.toSymbolIndices(word)), expected, word.toString());
+            for (int i = 0 ; i <= word.size() ; i++) {
+                assertEquals((boolean) compiled.computeSuffixOutput(word.prefix(i), word.subWord(i)), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testFourDeltas() {
+        checkSameLanguage(ExampleFourDeltas.getVCA(), 8);
+    }
+
+    @Test
+    public void testWithInternals() {
+        checkSameLanguage(ExampleWithInternals.getVCA(), 8);
+    }
+
+    @Test
+    public void testTwoCalls() {
+        checkSameLanguage(ExampleTwoCalls.getVCA(), 7);
+    }
+
+    @Test
+    public void testSinkAndNegativeCounter() {
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList('c'), Arrays.asList('a'), Arrays.asList('b'));
+        DefaultVCA<Character> vca = new DefaultVCA<>(alphabet, 1);
+        Location q0 = vca.addInitialLocation(true);
+        vca.setSuccessor(q0, 0, 'b', q0);
+        vca.setSuccessor(q0, 0, 'a', q0);
+
+        CompiledVCA<Character> compiled = vca.compile();
+        assertEquals(compiled.run(compiled.toSymbolIndices(Word.fromString("b"))), CompiledVCA.SINK);
+        assertFalse(compiled.accepts(Word.fromString("ba")));
+        assertFalse(compiled.accepts(Word.fromString("c")));
+        assertNull(compiled.getSuccessor(0, 'c', 0));
+    }
+}
@@ -23,6 +23,7 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -30,6 +31,8 @@ import java.util.stream.IntStream;
 
 import org.testng.annotations.Test;
 
+import be.uantwerpen.learningvca.examples.ExampleWithoutInternals;
+import net.automatalib.automata.fsa.DFA;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
 import net.automatalib.words.impl.DefaultVPDAlphabet;
@@ -181,4 +184,52 @@ public class DefaultVCATest {
         Word<Character> word = vca.getAcceptedWord();
         assertNull(word);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAcceptsDoesNotAllocatePerSymbol() {
+        VCA<?, Character> vca = ExampleWithoutInternals.getVCA();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0 ; i < 5000 ; i++) {
+            builder.append('a');
+        }
+        for (int i = 0 ; i < 5000 ; i++) {
+            builder.append('b');
+        }
+        Word<Character> word = Word.fromString(builder.toString());
+
+        // Warm-up
+        for (int i = 0 ; i < 100 ; i++) {
+            assertTrue(vca.accepts(word));
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int numberOfQueries = 100;
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0 ; i < numberOfQueries ; i++) {
+            vca.computeSuffixOutput(word, Word.epsilon());
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // The allocation must not depend on the length of the word
+        assertTrue(allocated / numberOfQueries < word.size(), "Allocated " + allocated + " bytes for " + numberOfQueries + " queries");
+    }
+
+    @Test
+    public void testLimitedBehaviorGraphWithLargeThreshold() {
+        VCA<?, Character> vca = ExampleWithoutInternals.getVCA();
+        int threshold = 100000;
+        DFA<?, Character> behaviorGraph = vca.toLimitedBehaviorGraph(threshold);
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0 ; i < threshold ; i++) {
+            builder.append('a');
+        }
+        Word<Character> calls = Word.fromString(builder.toString());
+        Word<Character> returns = Word.fromString(builder.toString().replace('a', 'b'));
+        assertTrue(behaviorGraph.size() > threshold);
+        assertTrue(behaviorGraph.accepts(calls.concat(returns)));
+        assertFalse(behaviorGraph.accepts(calls.concat(returns).append('b')));
+        assertFalse(behaviorGraph.accepts(calls.append('a')));
+    }
+}
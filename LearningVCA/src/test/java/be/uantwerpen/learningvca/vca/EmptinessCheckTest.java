@@ -0,0 +1,97 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+import org.testng.annotations.Test;
+
+import net.automatalib.words.VPDAlphabet;
+import net.automatalib.words.Word;
+import net.automatalib.words.impl.DefaultVPDAlphabet;
+
+public class EmptinessCheckTest {
+    /**
+     * @return A 2-VCA accepting exactly aabb and acccb
+     */
+    private DefaultVCA<Character> getVCA() {
+        VPDAlphabet<Character> alphabet = new DefaultVPDAlphabet<>(Arrays.asList('c'), Arrays.asList('a'), Arrays.asList('b'));
+        DefaultVCA<Character> vca = new DefaultVCA<>(alphabet, 2);
+        Location q0 = vca.addInitialLocation(false);
+        Location q1 = vca.addLocation(false);
+        Location q2 = vca.addLocation(false);
+        Location q3 = vca.addLocation(false);
+        Location p1 = vca.addLocation(false);
+        Location p2 = vca.addLocation(false);
+        Location p3 = vca.addLocation(false);
+        Location accepting = vca.addLocation(true);
+
+        vca.setSuccessor(q0, 0, 'a', q1);
+        vca.setSuccessor(q1, 1, 'a', q2);
+        vca.setSuccessor(q2, 2, 'b', q3);
+        vca.setSuccessor(q3, 1, 'b', accepting);
+        vca.setSuccessor(q1, 1, 'c', p1);
+        vca.setSuccessor(p1, 1, 'c', p2);
+        vca.setSuccessor(p2, 1, 'c', p3);
+        vca.setSuccessor(p3, 1, 'b', accepting);
+        return vca;
+    }
+
+    @Test
+    public void testShortest() {
+        assertEquals(EmptinessCheck.findShortestAcceptedWord(getVCA(), 2), Word.fromString("aabb"));
+    }
+
+    @Test
+    public void testMinimalHeight() {
+        assertEquals(EmptinessCheck.findAcceptedWordWithMinimalHeight(getVCA(), 2), Word.fromString("acccb"));
+    }
+
+    @Test
+    public void testBound() {
+        assertEquals(EmptinessCheck.findShortestAcceptedWord(getVCA(), 1), Word.fromString("acccb"));
+        assertNull(EmptinessCheck.findShortestAcceptedWord(getVCA(), 0));
+        assertNull(EmptinessCheck.findAcceptedWordWithMinimalHeight(getVCA(), 0));
+    }
+
+    @Test(expectedExceptions = CancellationException.class)
+    public void testInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            EmptinessCheck.findShortestAcceptedWord(getVCA(), 2);
+        }
+        finally {
+            // We clear the flag for the next tests
+            Thread.interrupted();
+        }
+    }
+
+    @Test(expectedExceptions = CancellationException.class)
+    public void testCancelled() {
+        EmptinessCheck.findAcceptedWordWithMinimalHeight(getVCA(), 2, () -> true);
+    }
+
+    @Test
+    public void testNotCancelled() {
+        assertEquals(EmptinessCheck.findShortestAcceptedWord(getVCA(), 2, () -> false), Word.fromString("aabb"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
+import net.automatalib.automata.fsa.DFA;
+import net.automatalib.util.automata.Automata;
+
+public class LimitedBehaviorGraphCacheTest {
+    @Test
+    public void testIncreasingThresholds() {
+        for (int seed = 0 ; seed < 10 ; seed++) {
+            DefaultVCA<String> vca = new RandomVCAGenerator(seed).generate(6, 1 + seed % 3, 1, 1, 1, 0.5);
+            LimitedBehaviorGraphCache<String> cache = new LimitedBehaviorGraphCache<>(vca);
+            for (int threshold = 0 ; threshold <= 8 ; threshold++) {
+                checkGraph(vca, cache.getLimitedBehaviorGraph(threshold), threshold);
+            }
+        }
+    }
+
+    @Test
+    public void testSkippedAndDecreasingThresholds() {
+        DefaultVCA<String> vca = new RandomVCAGenerator(42).generate(8, 2, 1, 1, 2, 0.5);
+        LimitedBehaviorGraphCache<String> cache = new LimitedBehaviorGraphCache<>(vca);
+        DFA<?, String> graph = cache.getLimitedBehaviorGraph(7);
+        checkGraph(vca, graph, 7);
+        checkGraph(vca, cache.getLimitedBehaviorGraph(3), 3);
+        checkGraph(vca, cache.getLimitedBehaviorGraph(10), 10);
+        assertSame(cache.getLimitedBehaviorGraph(7), graph);
+    }
+
+    private void checkGraph(VCA<?, String> vca, DFA<?, String> graph, int threshold) {
+        DFA<?, String> expected = vca.toLimitedBehaviorGraph(threshold);
+        assertEquals(graph.size(), expected.size());
+        assertTrue(Automata.testEquivalence(expected, graph, vca.getAlphabet()));
+    }
+}
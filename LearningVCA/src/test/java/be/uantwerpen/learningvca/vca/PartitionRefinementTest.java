@@ -0,0 +1,67 @@
+/*
+ * LearningVCA - An implementation of an active learning algorithm for Visibly One-Counter Automata
+ * Copyright (C) 2020 University of Mons and University of Antwerp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package be.uantwerpen.learningvca.vca;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import org.testng.annotations.Test;
+
+public class PartitionRefinementTest {
+    @Test
+    public void testMinimization() {
+        // Language over {0, 1}: the number of 1s is even. States 0, 2, 4 are even; states 1, 3, 5 are odd
+        int[] successors = {
+            2, 1,
+            3, 2,
+            4, 3,
+            5, 4,
+            0, 5,
+            1, 0
+        };
+        int[] initialClasses = {1, 0, 1, 0, 1, 0};
+        PartitionRefinement partition = new PartitionRefinement(6, 2, successors, initialClasses);
+
+        assertEquals(partition.numberOfClasses(), 2);
+        assertEquals(partition.getClassId(0), partition.getClassId(2));
+        assertEquals(partition.getClassId(0), partition.getClassId(4));
+        assertEquals(partition.getClassId(1), partition.getClassId(3));
+        assertEquals(partition.getClassId(1), partition.getClassId(5));
+        assertNotEquals(partition.getClassId(0), partition.getClassId(1));
+    }
+
+    @Test
+    public void testLongChain() {
+        // A chain where only the last state is accepting: every state is distinct
+        int n = 100000;
+        int[] successors = new int[n];
+        int[] initialClasses = new int[n];
+        for (int i = 0 ; i < n ; i++) {
+            successors[i] = Math.min(i + 1, n - 1);
+        }
+        initialClasses[n - 1] = 1;
+        PartitionRefinement partition = new PartitionRefinement(n, 1, successors, initialClasses);
+
+        assertEquals(partition.numberOfClasses(), n);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIncompleteTransitions() {
+        new PartitionRefinement(2, 1, new int[]{1, 2}, new int[]{0, 0});
+    }
+}
@@ -17,13 +17,17 @@
  */
 package be.uantwerpen.learningvca.vca;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
 
 import org.testng.annotations.Test;
 
+import be.uantwerpen.learningvca.examples.ExampleVariableThreshold;
+import be.uantwerpen.learningvca.examples.RandomVCAGenerator;
 import net.automatalib.util.ts.acceptors.AcceptanceCombiner;
 import net.automatalib.words.VPDAlphabet;
 import net.automatalib.words.Word;
@@ -49,4 +53,21 @@ public class ProductVCATest {
         assertNotNull(w);
         assertTrue(vca.accepts(w));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testShortestWitness() {
+        VCA<?, Character> target = ExampleVariableThreshold.getVCA(3);
+        DefaultVCA<Character> rejecting = new DefaultVCA<>(ExampleVariableThreshold.getAlphabet(), 0);
+        rejecting.addInitialLocation(false);
+
+        VCA<?, Character> vca = new ProductVCA<>(target.getAlphabet(), target, rejecting, AcceptanceCombiner.XOR);
+        assertEquals(vca.getAcceptedWord(), Word.fromString("aaabbb"));
+    }
+
+    @Test
+    public void testEmptyProduct() {
+        DefaultVCA<String> vca = new RandomVCAGenerator(3).generate(50, 2, 2, 2, 2, 0.5);
+        VCA<?, String> product = new ProductVCA<>(vca.getAlphabet(), vca, vca, AcceptanceCombiner.XOR);
+        assertNull(product.getAcceptedWord());
+    }
+}